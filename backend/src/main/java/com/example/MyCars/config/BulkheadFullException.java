@@ -0,0 +1,25 @@
+package com.example.MyCars.config;
+
+/**
+ * No se ha conseguido acceso a la base de datos a tiempo. Se responde con 503 y
+ * {@code Retry-After} para que el cliente reintente más tarde.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final int queueDepth;
+    private final int retryAfterSeconds;
+
+    public BulkheadFullException(int queueDepth, int retryAfterSeconds) {
+        super("Base de datos saturada (" + queueDepth + " peticiones en espera)");
+        this.queueDepth = queueDepth;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.MyCars.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.MyCars.dto.BulkheadStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Limita cuántos hilos acceden a la vez a la base de datos. Con hilos virtuales puede haber
+ * cientos de peticiones en curso, pero el pool de Hikari solo tiene unas pocas conexiones:
+ * las peticiones esperan aquí un tiempo acotado y, si no hay hueco, se rechazan con
+ * {@link BulkheadFullException} en lugar de acumularse esperando una conexión.
+ *
+ * <p>Solo cubre los repositorios, los métodos {@code @Transactional} y los bloques de
+ * {@link #call}. Con open-in-view, las asociaciones perezosas que se cargan al serializar una
+ * entidad en el controlador piden conexión sin permiso; quedan acotadas solo por el tiempo de
+ * espera de Hikari.
+ */
+@Aspect
+@Component
+// Justo por dentro de MethodMetrics, que así mide también la espera aquí
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DatabaseBulkhead {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final int maxQueue;
+    private final long timeoutMillis;
+    private final int retryAfterSeconds;
+
+    // Un hilo que ya tiene permiso (transacción que llama a repositorios) no vuelve a pedirlo
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Solo las peticiones que tuvieron que esperar; las que entran directamente no se miden
+    private final Timer queueWait;
+
+    public DatabaseBulkhead(
+            @Value("${app.db.bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${app.db.bulkhead.max-queue:200}") int maxQueue,
+            @Value("${app.db.bulkhead.timeout-ms:2000}") long timeoutMillis,
+            @Value("${app.db.bulkhead.retry-after-seconds:1}") int retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(permits, true);
+        this.maxPermits = permits;
+        this.maxQueue = maxQueue;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("mycars.db.bulkhead.permits", () -> maxPermits)
+                .description("Permisos del bulkhead de base de datos").register(meterRegistry);
+        Gauge.builder("mycars.db.bulkhead.in.use", this.permits, semaphore -> maxPermits - semaphore.availablePermits())
+                .description("Permisos en uso").register(meterRegistry);
+        Gauge.builder("mycars.db.bulkhead.queued", queued, AtomicInteger::get)
+                .description("Peticiones esperando un permiso").register(meterRegistry);
+        FunctionCounter.builder("mycars.db.bulkhead.rejected", rejected, AtomicLong::get)
+                .description("Peticiones rechazadas por falta de permisos").register(meterRegistry);
+        queueWait = Timer.builder("mycars.db.bulkhead.wait")
+                .description("Espera por un permiso de las peticiones que encontraron el bulkhead lleno")
+                .register(meterRegistry);
+    }
+
+    // Cualquier método de un repositorio de Spring Data, incluidos los fragmentos personalizados
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object guardRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return guard(joinPoint);
+    }
+
+    // Métodos transaccionales de la aplicación: el permiso cubre toda la transacción
+    @Around("within(com.example.MyCars..*) && (@annotation(org.springframework.transaction.annotation.Transactional)"
+            + " || @within(org.springframework.transaction.annotation.Transactional))")
+    public Object guardTransactional(ProceedingJoinPoint joinPoint) throws Throwable {
+        return guard(joinPoint);
+    }
+
+    /**
+     * Para bloques que abren su propia transacción con {@code TransactionTemplate}: el permiso
+     * se mantiene mientras la conexión está ocupada, no solo durante cada llamada al repositorio.
+     */
+    public <T> T call(Supplier<T> work) {
+        int[] held = depth.get();
+        if (held[0] > 0) {
+            return work.get();
+        }
+        acquire();
+        held[0]++;
+        try {
+            return work.get();
+        } finally {
+            held[0]--;
+            permits.release();
+        }
+    }
+
+    public BulkheadStats stats() {
+        int available = permits.availablePermits();
+        return new BulkheadStats(maxPermits, maxPermits - available, available, queued.get(), peakQueued.get(),
+                maxQueue, timeoutMillis, acquired.get(), rejected.get());
+    }
+
+    private Object guard(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] held = depth.get();
+        if (held[0] > 0) {
+            return joinPoint.proceed();
+        }
+        acquire();
+        held[0]++;
+        try {
+            return joinPoint.proceed();
+        } finally {
+            held[0]--;
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            acquired.incrementAndGet();
+            return;
+        }
+        int waiting = queued.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            peakQueued.accumulateAndGet(waiting, Math::max);
+            if (waiting > maxQueue || !permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new BulkheadFullException(waiting, retryAfterSeconds);
+            }
+            acquired.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new BulkheadFullException(waiting, retryAfterSeconds);
+        } finally {
+            queued.decrementAndGet();
+            queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.MyCars.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -10,17 +12,21 @@ import java.nio.file.Paths;
 @Configuration
 public class FileStorageConfig implements WebMvcConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageConfig.class);
+
     @Value("${app.upload.dir}")
     private String uploadDir;
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Las fotos de /uploads/cars las sirve PhotoFileController desde el PhotoStorage configurado
+        // (ETag, rangos, sendfile); este manejador queda para el resto de ficheros bajo /uploads
         Path uploadPath = Paths.get(uploadDir).getParent().toAbsolutePath().normalize();
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:" + uploadPath.toString() + "/")
                 .setCachePeriod(3600)
                 .resourceChain(true);
-        
-        System.out.println("Serving files from: " + uploadPath);
+
+        log.info("Sirviendo ficheros desde {}", uploadPath);
     }
 } 
\ No newline at end of file
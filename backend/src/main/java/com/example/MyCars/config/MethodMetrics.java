@@ -0,0 +1,79 @@
+package com.example.MyCars.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tiempo de cada método público de los servicios y del almacén de fotos, en el timer
+ * {@value #METRIC} con etiquetas layer, class, method y exception. Va por fuera del bulkhead,
+ * así que el tiempo incluye la espera por una conexión a la base de datos. Los controladores no
+ * se miden aquí: ya los cubre http.server.requests sin necesidad de un proxy por controlador.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.metrics.methods.enabled", matchIfMissing = true)
+public class MethodMetrics {
+
+    private static final String METRIC = "mycars.method";
+
+    private final MeterRegistry meterRegistry;
+
+    // Timer de las llamadas sin excepción, por método; los de error se resuelven en cada fallo
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.example.MyCars..*) && execution(public * *(..))"
+            + " && @within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service");
+    }
+
+    // Sistema de ficheros o S3, según la configuración
+    @Around("execution(public * com.example.MyCars.services.PhotoStorage+.*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "storage");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timers.computeIfAbsent(method, key -> timer(joinPoint, layer, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(joinPoint, layer, e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String layer, String exception) {
+        return Timer.builder(METRIC)
+                .description("Tiempo de los métodos de servicios y almacén de fotos")
+                .tag("layer", layer)
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.MyCars.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.MyCars.services.CarFeedService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Métricas de recursos propios que no registra Spring Boot. Latencia HTTP, pool de Hikari,
+ * JVM, Tomcat y Hibernate (si se activan sus estadísticas) ya salen de actuator; el bulkhead
+ * registra las suyas y los métodos de servicio se miden en {@link MethodMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Hilos activos, cola y tareas completadas de la generación de miniaturas; los rechazos los cuenta PhotoVariantService
+    @Bean
+    public MeterBinder photoVariantExecutorMetrics(@Qualifier("photoVariantExecutor") ThreadPoolExecutor executor) {
+        return new ExecutorServiceMetrics(executor, "photo-variants", Tags.empty());
+    }
+
+    @Bean
+    public MeterBinder carFeedMetrics(CarFeedService carFeedService) {
+        return registry -> {
+            Gauge.builder("mycars.cars.events.subscribers", carFeedService, CarFeedService::getSubscriberCount)
+                    .description("Suscriptores abiertos a /cars/events").register(registry);
+            FunctionCounter.builder("mycars.cars.events.evictions", carFeedService, CarFeedService::getEvictionCount)
+                    .description("Suscriptores desconectados por no consumir los eventos a tiempo").register(registry);
+        };
+    }
+}
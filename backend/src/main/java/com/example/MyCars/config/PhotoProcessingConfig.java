@@ -0,0 +1,34 @@
+package com.example.MyCars.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+@Configuration
+public class PhotoProcessingConfig {
+
+    @Value("${app.photos.variants.threads:2}")
+    private int threads;
+
+    @Value("${app.photos.variants.queue-capacity:200}")
+    private int queueCapacity;
+
+    // Pool acotado con cola acotada: si se llena, la tarea se rechaza y la foto se sirve en su tamaño original
+    // hasta que PhotoVariantService.backfill() la vuelve a encolar
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor photoVariantExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("photo-variants-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
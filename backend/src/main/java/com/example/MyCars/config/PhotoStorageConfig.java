@@ -0,0 +1,54 @@
+package com.example.MyCars.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.MyCars.services.FilePhotoStorage;
+import com.example.MyCars.services.PhotoStorage;
+import com.example.MyCars.services.S3PhotoStorage;
+
+@Configuration
+public class PhotoStorageConfig {
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    // filesystem: disco local repartido en subdirectorios; s3: bucket compatible con S3
+    @Value("${app.photos.storage.type:filesystem}")
+    private String type;
+
+    @Value("${app.photos.storage.s3.endpoint:http://localhost:9000}")
+    private String s3Endpoint;
+
+    @Value("${app.photos.storage.s3.bucket:mycars}")
+    private String s3Bucket;
+
+    @Value("${app.photos.storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${app.photos.storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${app.photos.storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${app.photos.storage.s3.staging-dir:${java.io.tmpdir}/mycars-staging}")
+    private String s3StagingDir;
+
+    @Bean
+    public PhotoStorage photoStorage() throws IOException {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        return switch (type) {
+            case "filesystem" -> new FilePhotoStorage(uploadPath);
+            case "s3" -> new S3PhotoStorage(URI.create(s3Endpoint), s3Bucket, s3Region, s3AccessKey, s3SecretKey,
+                    uploadPath, Paths.get(s3StagingDir));
+            default -> throw new IllegalStateException("app.photos.storage.type no válido: " + type);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.MyCars.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periódicas: reconstrucción de agregados e índices en memoria
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,89 @@
+package com.example.MyCars.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.BulkheadStats;
+import com.example.MyCars.dto.PhotoStorageMigrationReport;
+import com.example.MyCars.dto.UploadReconciliationReport;
+import com.example.MyCars.services.PhotoStorageMigrationService;
+import com.example.MyCars.services.UploadReconciliationService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/admin")
+@Tag(name = "Admin", description = "Estado interno del servicio")
+public class AdminController {
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private UploadReconciliationService uploadReconciliationService;
+
+    @Autowired
+    private PhotoStorageMigrationService photoStorageMigrationService;
+
+    @Operation(summary = "Estado del acceso a base de datos", description = "Permisos en uso y peticiones en cola del bulkhead de base de datos")
+    @ApiResponse(responseCode = "200", description = "Estado obtenido correctamente")
+    @GetMapping("/bulkhead")
+    public ResponseEntity<BulkheadStats> getBulkheadStats() {
+        return ResponseEntity.ok(databaseBulkhead.stats());
+    }
+
+    @Operation(summary = "Última reconciliación de subidas", description = "Resultado de la última reconciliación del directorio de subidas con la tabla de fotos: fotos sin fichero, ficheros huérfanos en cuarentena y ficheros borrados")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Informe obtenido correctamente"),
+        @ApiResponse(responseCode = "204", description = "Todavía no se ha completado ninguna reconciliación")
+    })
+    @GetMapping("/uploads/reconciliation")
+    public ResponseEntity<UploadReconciliationReport> getUploadReconciliation() {
+        UploadReconciliationReport report = uploadReconciliationService.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Reconciliar subidas ahora", description = "Lanza en segundo plano una reconciliación del directorio de subidas; el resultado se consulta con GET")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Reconciliación iniciada"),
+        @ApiResponse(responseCode = "409", description = "Ya hay una reconciliación en curso")
+    })
+    @PostMapping("/uploads/reconciliation")
+    public ResponseEntity<Void> startUploadReconciliation() {
+        return uploadReconciliationService.startReconciliation()
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @Operation(summary = "Estado de la migración del almacén de fotos", description = "Progreso de la última migración de los ficheros del directorio plano anterior al almacén de fotos configurado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Informe obtenido correctamente"),
+        @ApiResponse(responseCode = "204", description = "Todavía no se ha lanzado ninguna migración")
+    })
+    @GetMapping("/photos/storage/migration")
+    public ResponseEntity<PhotoStorageMigrationReport> getPhotoStorageMigration() {
+        PhotoStorageMigrationReport report = photoStorageMigrationService.getReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Migrar el almacén de fotos", description = "Lanza en segundo plano el traslado de los ficheros del directorio plano anterior al almacén de fotos configurado, sin interrumpir el servicio; el progreso se consulta con GET")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Migración iniciada"),
+        @ApiResponse(responseCode = "409", description = "Ya hay una migración en curso")
+    })
+    @PostMapping("/photos/storage/migration")
+    public ResponseEntity<Void> startPhotoStorageMigration() {
+        return photoStorageMigrationService.startMigration()
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
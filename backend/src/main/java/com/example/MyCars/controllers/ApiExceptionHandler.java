@@ -0,0 +1,37 @@
+package com.example.MyCars.controllers;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.example.MyCars.config.BulkheadFullException;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Base de datos saturada: se descarta la petición en vez de dejarla esperando una conexión
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> handleBulkheadFull(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    // Restricción de la base de datos (p. ej. dos fotos principales para el mismo vehículo)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("La operación entra en conflicto con el estado actual de los datos");
+    }
+
+    // La versión enviada ya no es la actual: otro cliente ha modificado el recurso
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("El recurso ha cambiado desde que se leyó; vuelve a obtenerlo antes de modificarlo");
+    }
+}
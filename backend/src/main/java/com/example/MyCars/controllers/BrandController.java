@@ -1,21 +1,27 @@
 package com.example.MyCars.controllers;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.dto.VersionStamp;
 import com.example.MyCars.services.BrandService;
+import com.example.MyCars.services.ResourceVersionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,24 +36,40 @@ public class BrandController {
 
     @Autowired
     private BrandService brandService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
     
-    @Operation(summary = "Obtener todas las marcas", description = "Retorna una lista de todas las marcas disponibles")
-    @ApiResponse(responseCode = "200", description = "Lista de marcas obtenida correctamente")
+    @Operation(summary = "Obtener todas las marcas", description = "Retorna una lista de todas las marcas disponibles. Admite If-None-Match / If-Modified-Since")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de marcas obtenida correctamente"),
+        @ApiResponse(responseCode = "304", description = "Las marcas no han cambiado")
+    })
     @GetMapping
-    public ResponseEntity<List<BrandModel>> getAllBrands() {
-        return ResponseEntity.ok(brandService.getAllBrands());
+    public ResponseEntity<List<BrandModel>> getAllBrands(WebRequest request) {
+        VersionStamp stamp = resourceVersionService.catalog();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
+        return ConditionalResponses.ok(stamp, brandService.getAllBrands());
     }
     
     @Operation(summary = "Obtener una marca por ID", description = "Retorna una marca basada en su ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Marca encontrada"),
+        @ApiResponse(responseCode = "304", description = "La marca no ha cambiado"),
         @ApiResponse(responseCode = "404", description = "Marca no encontrada")
     })
     @GetMapping("/{id}")
     public ResponseEntity<BrandModel> getBrandById(
-        @Parameter(description = "ID de la marca", required = true) @PathVariable Long id) {
+        @Parameter(description = "ID de la marca", required = true) @PathVariable Long id,
+        WebRequest request) {
+        VersionStamp stamp = resourceVersionService.catalog();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
         return brandService.getBrandById(id)
-                .map(ResponseEntity::ok)
+                .map(brand -> ConditionalResponses.ok(stamp, brand))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -76,11 +98,35 @@ public class BrandController {
         return brandService.getBrandById(id)
                 .map(existingBrand -> {
                     brand.setId(id);
+                    // Sin versión en el cuerpo se actualiza sobre la actual; con versión, se comprueba
+                    if (brand.getVersion() == null) {
+                        brand.setVersion(existingBrand.getVersion());
+                    }
                     return ResponseEntity.ok(brandService.saveBrand(brand));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Operation(summary = "Modificar parte de una marca", description = "Aplica un JSON Merge Patch: solo se escriben los campos presentes en el cuerpo, en un único UPDATE. Con \"version\" en el cuerpo el cambio se rechaza si la marca ya no está en esa versión")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Marca actualizada correctamente"),
+        @ApiResponse(responseCode = "400", description = "Campos desconocidos, no modificables o con valores inválidos"),
+        @ApiResponse(responseCode = "404", description = "Marca no encontrada"),
+        @ApiResponse(responseCode = "409", description = "La marca ha cambiado desde la versión indicada")
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BrandModel> patchBrand(
+        @Parameter(description = "ID de la marca", required = true) @PathVariable Long id,
+        @Parameter(description = "Campos que se modifican (null vacía el campo)", required = true) @RequestBody Map<String, Object> patch) {
+        try {
+            return brandService.patchBrand(id, patch)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @Operation(summary = "Eliminar una marca", description = "Elimina una marca del sistema")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Marca eliminada correctamente"),
@@ -1,61 +1,257 @@
 package com.example.MyCars.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.MyCars.dto.CarFacetQuery;
+import com.example.MyCars.dto.CarFacetResult;
+import com.example.MyCars.dto.CarImportReport;
+import com.example.MyCars.dto.CarPage;
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSortField;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.dto.CarTextSearchResult;
+import com.example.MyCars.dto.VersionStamp;
 import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.services.CarExportService;
+import com.example.MyCars.services.CarFacetService;
+import com.example.MyCars.services.CarFeedService;
+import com.example.MyCars.services.CarImportService;
 import com.example.MyCars.services.CarService;
 import com.example.MyCars.services.CarPhotoService;
+import com.example.MyCars.services.CarTextSearchService;
+import com.example.MyCars.services.ResourceVersionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("cars")
 @Tag(name = "Cars", description = "API para gestionar vehículos")
 public class CarController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_BATCH_IDS = 100;
+
+    private static final int MAX_FACET_IDS = 1000;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private CarService carService;
 
     @Autowired
     private CarPhotoService carPhotoService;
 
-    @Operation(summary = "Obtener todos los vehículos", description = "Retorna una lista de todos los vehículos disponibles")
-    @ApiResponse(responseCode = "200", description = "Lista de vehículos obtenida correctamente")
+    @Autowired
+    private CarExportService carExportService;
+
+    @Autowired
+    private CarImportService carImportService;
+
+    @Autowired
+    private CarFacetService carFacetService;
+
+    @Autowired
+    private CarTextSearchService carTextSearchService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private CarFeedService carFeedService;
+
+    @Operation(summary = "Obtener todos los vehículos", description = "Retorna un resumen de cada vehículo con su foto principal; el detalle completo está en /cars/{id}. Admite If-None-Match / If-Modified-Since")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de vehículos obtenida correctamente"),
+        @ApiResponse(responseCode = "304", description = "Los vehículos no han cambiado")
+    })
     @GetMapping
-    public ArrayList<CarModel> getCars() {
-        return carService.getAllCars();
+    public ResponseEntity<List<CarSummary>> getCars(WebRequest request) {
+        VersionStamp stamp = resourceVersionService.cars();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
+        return ConditionalResponses.ok(stamp, carService.getCarSummaries());
+    }
+
+    @Operation(summary = "Buscar vehículos", description = "Filtra, ordena y pagina los vehículos mediante un cursor opaco (keyset)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de vehículos obtenida correctamente"),
+        @ApiResponse(responseCode = "400", description = "Parámetros de búsqueda o cursor inválidos")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<CarPage<CarSummary>> searchCars(
+        @Parameter(description = "Estado del vehículo") @RequestParam(required = false) CarStatus status,
+        @Parameter(description = "ID de la marca") @RequestParam(required = false) Long brandId,
+        @Parameter(description = "ID del modelo") @RequestParam(required = false) Long modelId,
+        @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal minPrice,
+        @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal maxPrice,
+        @Parameter(description = "Año mínimo") @RequestParam(required = false) Integer minYear,
+        @Parameter(description = "Año máximo") @RequestParam(required = false) Integer maxYear,
+        @Parameter(description = "Kilometraje mínimo") @RequestParam(required = false) Integer minMileage,
+        @Parameter(description = "Kilometraje máximo") @RequestParam(required = false) Integer maxMileage,
+        @Parameter(description = "Campo de ordenación") @RequestParam(defaultValue = "ID") CarSortField sort,
+        @Parameter(description = "Dirección de ordenación (asc o desc)") @RequestParam(defaultValue = "asc") String direction,
+        @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int limit,
+        @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        CarSearchCriteria criteria = new CarSearchCriteria(status, brandId, modelId, minPrice, maxPrice,
+                minYear, maxYear, minMileage, maxMileage, sort, "desc".equalsIgnoreCase(direction));
+        try {
+            return ResponseEntity.ok(carService.searchCars(criteria, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Buscar por texto", description = "Busca en la descripción, el color, el modelo y la marca con un índice de texto en memoria y devuelve los vehículos ordenados por relevancia, con las coincidencias de la descripción resaltadas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resultado obtenido correctamente"),
+        @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    })
+    @GetMapping("/search/text")
+    public ResponseEntity<CarTextSearchResult> searchText(
+        @Parameter(description = "Texto a buscar", required = true) @RequestParam String q,
+        @Parameter(description = "Número de resultados que se saltan") @RequestParam(defaultValue = "0") int offset,
+        @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "20") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(carTextSearchService.search(q, offset, limit));
+    }
+
+    @Operation(summary = "Buscar con facetas", description = "Filtra los vehículos con un índice en memoria y devuelve los IDs que cumplen los filtros junto con los recuentos de cada faceta (estado, marca, modelo, tramos de precio y kilometraje, año)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resultado obtenido correctamente"),
+        @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    })
+    @GetMapping("/facets")
+    public ResponseEntity<CarFacetResult> getFacets(
+        @Parameter(description = "Estados del vehículo") @RequestParam(required = false) List<CarStatus> status,
+        @Parameter(description = "IDs de marca") @RequestParam(required = false) List<Long> brandId,
+        @Parameter(description = "IDs de modelo") @RequestParam(required = false) List<Long> modelId,
+        @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal minPrice,
+        @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal maxPrice,
+        @Parameter(description = "Año mínimo") @RequestParam(required = false) Integer minYear,
+        @Parameter(description = "Año máximo") @RequestParam(required = false) Integer maxYear,
+        @Parameter(description = "Kilometraje mínimo") @RequestParam(required = false) Integer minMileage,
+        @Parameter(description = "Kilometraje máximo") @RequestParam(required = false) Integer maxMileage,
+        @Parameter(description = "Número máximo de IDs devueltos") @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 0 || limit > MAX_FACET_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(carFacetService.search(new CarFacetQuery(status, brandId, modelId, minPrice, maxPrice,
+                minYear, maxYear, minMileage, maxMileage, limit)));
+    }
+
+    @Operation(summary = "Exportar el inventario", description = "Transmite todos los vehículos en formato NDJSON (un vehículo por línea) con memoria constante")
+    @ApiResponse(responseCode = "200", description = "Exportación iniciada correctamente")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCars(
+        @Parameter(description = "Exportar solo los vehículos modificados desde esta fecha (ISO-8601)")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant updatedSince,
+        @Parameter(description = "Comprimir la respuesta con gzip") @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            carExportService.exportNdjson(updatedSince, target);
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cars.ndjson\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @Operation(summary = "Obtener varios vehículos por ID", description = "Retorna los vehículos pedidos en un mapa indexado por ID, resueltos con una sola consulta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Vehículos encontrados; los IDs inexistentes se omiten"),
+        @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado larga")
+    })
+    @GetMapping("/batch")
+    public ResponseEntity<Map<Long, CarModel>> getCarsByIds(
+        @Parameter(description = "IDs de los vehículos separados por comas", required = true) @RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(carService.getCarsByIds(new LinkedHashSet<>(ids)));
+    }
+
+    @Operation(summary = "Suscribirse a los cambios de vehículos", description = "Flujo Server-Sent Events con un evento \"car\" por cada alta, modificación o baja (ID, campos cambiados y nueva versión). Con Last-Event-ID se reenvían los cambios perdidos; si ya no están disponibles se envía un evento \"reset\"")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Suscripción abierta"),
+        @ApiResponse(responseCode = "503", description = "Demasiados suscriptores")
+    })
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToCarEvents(
+        @Parameter(description = "ID del último evento recibido") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = carFeedService.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     @Operation(summary = "Obtener un vehículo por ID", description = "Retorna un vehículo basado en su ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Vehículo encontrado"),
+        @ApiResponse(responseCode = "304", description = "El vehículo no ha cambiado"),
         @ApiResponse(responseCode = "404", description = "Vehículo no encontrado")
     })
     @GetMapping("/{id}")
     public ResponseEntity<CarModel> getCarById(
-        @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id) {
+        @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id,
+        WebRequest request) {
+        VersionStamp stamp = resourceVersionService.car(id);
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
         CarModel car = carService.getCarById(id);
         if (car == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(car);
+        return ConditionalResponses.ok(stamp, car);
     }
 
     @Operation(summary = "Crear un nuevo vehículo", description = "Crea un nuevo vehículo en el sistema")
@@ -71,6 +267,21 @@ public class CarController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedCar);
     }
 
+    @Operation(summary = "Importar vehículos en bloque", description = "Crea vehículos a partir de un array JSON o de NDJSON (uno por línea), creando marcas y modelos si no existen, y devuelve el resultado de cada fila")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación procesada; el detalle por fila indica qué se creó"),
+        @ApiResponse(responseCode = "500", description = "Error leyendo el cuerpo de la petición")
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<CarImportReport> importCars(HttpServletRequest request) {
+        // El cuerpo se lee en streaming: no se carga el array completo en memoria
+        try {
+            return ResponseEntity.ok(carImportService.importCars(request.getInputStream()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "Actualizar un vehículo", description = "Actualiza los datos de un vehículo existente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Vehículo actualizado correctamente"),
@@ -81,14 +292,33 @@ public class CarController {
     public ResponseEntity<CarModel> updateCar(
         @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id,
         @Parameter(description = "Nuevos datos del vehículo", required = true) @RequestBody CarModel car) {
-        CarModel existingCar = carService.getCarById(id);
-        if (existingCar == null) {
+        car.setId(id);
+        CarModel updated = carService.updateCar(car);
+        if (updated == null) {
             return ResponseEntity.notFound().build();
         }
-        car.setId(id);
-        return ResponseEntity.ok(carService.updateCar(car));
+        return ResponseEntity.ok(updated);
     }
     
+    @Operation(summary = "Modificar parte de un vehículo", description = "Aplica un JSON Merge Patch: solo se escriben los campos presentes en el cuerpo, en un único UPDATE. Con \"version\" en el cuerpo el cambio se rechaza si el vehículo ya no está en esa versión")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Vehículo actualizado correctamente"),
+        @ApiResponse(responseCode = "400", description = "Campos desconocidos, no modificables o con valores inválidos"),
+        @ApiResponse(responseCode = "404", description = "Vehículo no encontrado"),
+        @ApiResponse(responseCode = "409", description = "El vehículo ha cambiado desde la versión indicada")
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<CarModel> patchCar(
+        @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id,
+        @Parameter(description = "Campos que se modifican (null vacía el campo)", required = true) @RequestBody Map<String, Object> patch) {
+        try {
+            CarModel car = carService.patchCar(id, patch);
+            return car != null ? ResponseEntity.ok(car) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(summary = "Eliminar un vehículo", description = "Elimina un vehículo del sistema")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Vehículo eliminado correctamente"),
@@ -97,11 +327,9 @@ public class CarController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCar(
         @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id) {
-        CarModel car = carService.getCarById(id);
-        if (car == null) {
+        if (!carService.deleteCar(id)) {
             return ResponseEntity.notFound().build();
         }
-        carService.deleteCar(id);
         return ResponseEntity.ok().build();
     }
 }
@@ -1,9 +1,15 @@
 package com.example.MyCars.controllers;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -12,11 +18,16 @@ import com.example.MyCars.models.CarModel;
 import com.example.MyCars.models.CarPhotoModel;
 import com.example.MyCars.services.CarPhotoService;
 import com.example.MyCars.services.CarService;
+import com.example.MyCars.services.InvalidPhotoException;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/cars")
 public class CarPhotoController {
 
+    private static final int MAX_BATCH_IDS = 100;
+
     @Autowired
     private CarPhotoService carPhotoService;
 
@@ -42,6 +53,28 @@ public class CarPhotoController {
         return mainPhoto != null ? ResponseEntity.ok(mainPhoto) : ResponseEntity.notFound().build();
     }
 
+    // Fotos principales de varios vehículos a la vez (rejilla de tarjetas), indexadas por id de vehículo
+    @GetMapping("/photos/main")
+    public ResponseEntity<Map<Long, CarPhotoModel>> getMainPhotos(@RequestParam List<Long> carIds) {
+        if (carIds.isEmpty() || carIds.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(carPhotoService.getMainPhotos(new LinkedHashSet<>(carIds)));
+    }
+
+    @GetMapping("/photos/{photoId}/image")
+    public ResponseEntity<Void> getPhotoImage(
+            @PathVariable Long photoId,
+            @RequestParam(value = "width", defaultValue = "0") int width) {
+        CarPhotoModel photo = carPhotoService.getPhotoById(photoId);
+        if (photo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Redirige a la variante más pequeña que cubre el ancho pedido (o al original)
+        String url = width > 0 ? photo.getUrlForWidth(width) : photo.getUrl();
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
+    }
+
     @PostMapping("/{carId}/photos")
     public ResponseEntity<CarPhotoModel> uploadPhoto(
             @PathVariable Long carId,
@@ -55,11 +88,76 @@ public class CarPhotoController {
             }
             CarPhotoModel photo = carPhotoService.savePhoto(file, car, caption, isMain);
             return ResponseEntity.ok(photo);
+        } catch (InvalidPhotoException e) {
+            return ResponseEntity.status(statusFor(e)).build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Varias fotos en una sola petición; mainIndex indica cuál de ellas será la principal
+    @PostMapping("/{carId}/photos/batch")
+    public ResponseEntity<List<CarPhotoModel>> uploadPhotos(
+            @PathVariable Long carId,
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "captions", required = false) List<String> captions,
+            @RequestParam(value = "mainIndex", required = false) Integer mainIndex) {
+        try {
+            CarModel car = carService.getCarById(carId);
+            if (car == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (files.isEmpty() || (mainIndex != null && (mainIndex < 0 || mainIndex >= files.size()))) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(carPhotoService.savePhotos(files, car, captions, mainIndex));
+        } catch (InvalidPhotoException e) {
+            return ResponseEntity.status(statusFor(e)).build();
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // Subida sin multipart: el cuerpo de la petición es la imagen y se escribe una sola vez
+    @PostMapping(value = "/{carId}/photos/stream", consumes = {"image/*", "application/octet-stream"})
+    public ResponseEntity<CarPhotoModel> uploadPhotoStream(
+            @PathVariable Long carId,
+            @RequestParam(value = "caption", required = false) String caption,
+            @RequestParam(value = "isMain", defaultValue = "false") Boolean isMain,
+            HttpServletRequest request) {
+        try {
+            CarModel car = carService.getCarById(carId);
+            if (car == null) {
+                return ResponseEntity.notFound().build();
+            }
+            try (ReadableByteChannel body = Channels.newChannel(request.getInputStream())) {
+                CarPhotoModel photo = carPhotoService.savePhoto(body, car, caption, isMain);
+                return ResponseEntity.status(HttpStatus.CREATED).body(photo);
+            }
+        } catch (InvalidPhotoException e) {
+            return ResponseEntity.status(statusFor(e)).build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Cambia la foto principal; 409 si otra petición la cambió a la vez
+    @PutMapping("/{carId}/photos/{photoId}/main")
+    public ResponseEntity<CarPhotoModel> setMainPhoto(@PathVariable Long carId, @PathVariable Long photoId) {
+        CarPhotoModel photo = carPhotoService.setMainPhoto(carId, photoId);
+        return photo != null ? ResponseEntity.ok(photo) : ResponseEntity.notFound().build();
+    }
+
+    // Nuevo orden de las fotos: el cuerpo es la lista completa de IDs de fotos del vehículo
+    @PutMapping("/{carId}/photos/order")
+    public ResponseEntity<List<CarPhotoModel>> reorderPhotos(@PathVariable Long carId, @RequestBody List<Long> photoIds) {
+        if (carService.getCarById(carId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        List<CarPhotoModel> photos = carPhotoService.reorderPhotos(carId, photoIds);
+        return photos != null ? ResponseEntity.ok(photos) : ResponseEntity.badRequest().build();
+    }
+
     @DeleteMapping("/photos/{photoId}")
     public ResponseEntity<Void> deletePhoto(@PathVariable Long photoId) {
         try {
@@ -69,4 +167,12 @@ public class CarPhotoController {
             return ResponseEntity.internalServerError().build();
         }
     }
-} 
\ No newline at end of file
+
+    private static HttpStatus statusFor(InvalidPhotoException e) {
+        return switch (e.getReason()) {
+            case TOO_LARGE -> HttpStatus.PAYLOAD_TOO_LARGE;
+            case UNSUPPORTED_TYPE -> HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+            case EMPTY -> HttpStatus.BAD_REQUEST;
+        };
+    }
+}
\ No newline at end of file
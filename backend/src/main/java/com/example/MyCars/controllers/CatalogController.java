@@ -0,0 +1,48 @@
+package com.example.MyCars.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.services.CatalogService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/catalog")
+@Tag(name = "Catalog", description = "Catálogo de marcas y modelos servido desde memoria")
+public class CatalogController {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Operation(summary = "Obtener el catálogo completo", description = "Retorna todas las marcas con sus modelos sin acceder a la base de datos")
+    @ApiResponse(responseCode = "200", description = "Catálogo obtenido correctamente")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCatalog() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogService.getSnapshot().json());
+    }
+
+    @Operation(summary = "Obtener una marca del catálogo", description = "Retorna una marca con sus modelos sin acceder a la base de datos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Marca encontrada"),
+        @ApiResponse(responseCode = "404", description = "Marca no encontrada")
+    })
+    @GetMapping("/brands/{brandId}")
+    public ResponseEntity<CatalogSnapshot.Brand> getCatalogBrand(
+        @Parameter(description = "ID de la marca", required = true) @PathVariable Long brandId) {
+        CatalogSnapshot.Brand brand = catalogService.getSnapshot().brandsById().get(brandId);
+        return brand != null ? ResponseEntity.ok(brand) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.MyCars.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.MyCars.dto.VersionStamp;
+
+/**
+ * Respuestas condicionales a partir de un {@link VersionStamp}. La comprobación se hace antes de
+ * cargar nada: si el cliente ya tiene la versión actual se responde 304 sin cuerpo.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    // Atiende If-None-Match / If-Modified-Since; si devuelve true la respuesta 304 ya está preparada
+    static boolean notModified(WebRequest request, VersionStamp stamp) {
+        return request.checkNotModified(stamp.etag(), stamp.lastModified().toEpochMilli());
+    }
+
+    // El cliente puede guardar la respuesta pero debe revalidarla en cada uso
+    static <T> ResponseEntity<T> ok(VersionStamp stamp, T body) {
+        return ResponseEntity.ok()
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+}
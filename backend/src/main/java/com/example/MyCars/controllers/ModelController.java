@@ -1,22 +1,28 @@
 package com.example.MyCars.controllers;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.MyCars.dto.VersionStamp;
 import com.example.MyCars.models.ModelModel;
 import com.example.MyCars.services.BrandService;
 import com.example.MyCars.services.ModelService;
+import com.example.MyCars.services.ResourceVersionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -34,37 +40,59 @@ public class ModelController {
     
     @Autowired
     private BrandService brandService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
     
-    @Operation(summary = "Obtener todos los modelos", description = "Retorna una lista de todos los modelos disponibles")
-    @ApiResponse(responseCode = "200", description = "Lista de modelos obtenida correctamente")
+    @Operation(summary = "Obtener todos los modelos", description = "Retorna una lista de todos los modelos disponibles. Admite If-None-Match / If-Modified-Since")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de modelos obtenida correctamente"),
+        @ApiResponse(responseCode = "304", description = "Los modelos no han cambiado")
+    })
     @GetMapping
-    public ResponseEntity<List<ModelModel>> getAllModels() {
-        return ResponseEntity.ok(modelService.getAllModels());
+    public ResponseEntity<List<ModelModel>> getAllModels(WebRequest request) {
+        VersionStamp stamp = resourceVersionService.catalog();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
+        return ConditionalResponses.ok(stamp, modelService.getAllModels());
     }
     
     @Operation(summary = "Obtener un modelo por ID", description = "Retorna un modelo basado en su ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Modelo encontrado"),
+        @ApiResponse(responseCode = "304", description = "El modelo no ha cambiado"),
         @ApiResponse(responseCode = "404", description = "Modelo no encontrado")
     })
     @GetMapping("/{id}")
     public ResponseEntity<ModelModel> getModelById(
-        @Parameter(description = "ID del modelo", required = true) @PathVariable Long id) {
+        @Parameter(description = "ID del modelo", required = true) @PathVariable Long id,
+        WebRequest request) {
+        VersionStamp stamp = resourceVersionService.catalog();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
         return modelService.getModelById(id)
-                .map(ResponseEntity::ok)
+                .map(model -> ConditionalResponses.ok(stamp, model))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @Operation(summary = "Obtener modelos por marca", description = "Retorna una lista de modelos que pertenecen a una marca específica")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de modelos obtenida correctamente"),
+        @ApiResponse(responseCode = "304", description = "Los modelos no han cambiado"),
         @ApiResponse(responseCode = "404", description = "Marca no encontrada")
     })
     @GetMapping("/brand/{brandId}")
     public ResponseEntity<List<ModelModel>> getModelsByBrand(
-        @Parameter(description = "ID de la marca", required = true) @PathVariable Long brandId) {
+        @Parameter(description = "ID de la marca", required = true) @PathVariable Long brandId,
+        WebRequest request) {
+        VersionStamp stamp = resourceVersionService.catalog();
+        if (ConditionalResponses.notModified(request, stamp)) {
+            return null;
+        }
         return brandService.getBrandById(brandId)
-                .map(brand -> ResponseEntity.ok(modelService.getModelsByBrand(brand)))
+                .map(brand -> ConditionalResponses.ok(stamp, modelService.getModelsByBrand(brand)))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -93,11 +121,35 @@ public class ModelController {
         return modelService.getModelById(id)
                 .map(existingModel -> {
                     model.setId(id);
+                    // Sin versión en el cuerpo se actualiza sobre la actual; con versión, se comprueba
+                    if (model.getVersion() == null) {
+                        model.setVersion(existingModel.getVersion());
+                    }
                     return ResponseEntity.ok(modelService.saveModel(model));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Operation(summary = "Modificar parte de un modelo", description = "Aplica un JSON Merge Patch: solo se escriben los campos presentes en el cuerpo, en un único UPDATE. Con \"version\" en el cuerpo el cambio se rechaza si el modelo ya no está en esa versión")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Modelo actualizado correctamente"),
+        @ApiResponse(responseCode = "400", description = "Campos desconocidos, no modificables o con valores inválidos"),
+        @ApiResponse(responseCode = "404", description = "Modelo no encontrado"),
+        @ApiResponse(responseCode = "409", description = "El modelo ha cambiado desde la versión indicada")
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ModelModel> patchModel(
+        @Parameter(description = "ID del modelo", required = true) @PathVariable Long id,
+        @Parameter(description = "Campos que se modifican (null vacía el campo)", required = true) @RequestBody Map<String, Object> patch) {
+        try {
+            return modelService.patchModel(id, patch)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @Operation(summary = "Eliminar un modelo", description = "Elimina un modelo del sistema")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Modelo eliminado correctamente"),
@@ -0,0 +1,291 @@
+package com.example.MyCars.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import com.example.MyCars.services.PhotoStorage;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sirve los ficheros de fotos con ETag fuerte, peticiones condicionales, rangos
+ * y sendfile cuando el conector lo soporta.
+ */
+@Controller
+@Hidden
+public class PhotoFileController {
+
+    // Nombres direccionados por contenido (y sus variantes): su contenido nunca cambia
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("^[0-9a-f]{64}(_w\\d+)?\\.[a-z0-9]{1,5}$");
+
+    private static final Pattern SAFE_FILE_NAME = Pattern.compile("^[A-Za-z0-9][A-Za-z0-9._-]*$");
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+
+    private static final String REVALIDATE_CACHE = "public, max-age=3600";
+
+    // Por debajo de este tamaño copiar es más barato que delegar en sendfile
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @GetMapping("/uploads/cars/{fileName:.+}")
+    public void servePhoto(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!SAFE_FILE_NAME.matcher(fileName).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean immutable = CONTENT_ADDRESSED.matcher(fileName).matches();
+        String baseTag = immutable
+                ? fileName.substring(0, fileName.lastIndexOf('.'))
+                : null;
+
+        Path file = photoStorage.localPath(fileName);
+        if (file == null) {
+            serveRemote(fileName, baseTag, request, response);
+            return;
+        }
+
+        // Variante precomprimida (.br / .gz) si el cliente la acepta
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        String contentEncoding = null;
+        Path body = file;
+        boolean hasPrecompressed = false;
+        for (String encoding : new String[] {"br", "gzip"}) {
+            Path candidate = photoStorage.localPath(fileName + ("br".equals(encoding) ? ".br" : ".gz"));
+            if (candidate != null) {
+                hasPrecompressed = true;
+                if (contentEncoding == null && accepts(acceptEncoding, encoding)) {
+                    contentEncoding = encoding;
+                    body = candidate;
+                }
+            }
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(body, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Trasladado por la migración del almacén entre la búsqueda y la lectura: se busca de nuevo
+            servePhoto(fileName, request, response);
+            return;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String tag = baseTag != null
+                ? baseTag
+                : Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        String etag = "\"" + tag + (contentEncoding != null ? "-" + contentEncoding : "") + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE : REVALIDATE_CACHE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, contentEncoding == null ? "bytes" : "none");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (hasPrecompressed) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        if (contentEncoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && contentEncoding == null && rangeStillValid(request, etag, lastModified)) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+            // Solo se admite un rango; con varios se sirve el fichero completo
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    long suffix = bytePosition(matcher.group(2));
+                    start = Math.max(0, length - suffix);
+                } else {
+                    start = bytePosition(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, bytePosition(matcher.group(2)));
+                    }
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // El conector envía el fichero con sendfile al terminar la petición
+            request.setAttribute(SENDFILE_FILENAME, body.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(body, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Los subdirectorios del almacén (reparto, cuarentena, temporales) no se publican
+    @GetMapping("/uploads/cars/**")
+    public void rejectNestedPath(HttpServletResponse response) throws IOException {
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    // Almacén remoto: se reenvía el contenido completo, sin rangos ni precomprimidos
+    private void serveRemote(String fileName, String baseTag, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        InputStream in;
+        try {
+            in = photoStorage.open(fileName);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (in) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, baseTag != null ? IMMUTABLE_CACHE : REVALIDATE_CACHE);
+            response.setHeader("X-Content-Type-Options", "nosniff");
+            if (baseTag != null) {
+                String etag = "\"" + baseTag + "\"";
+                response.setHeader(HttpHeaders.ETAG, etag);
+                String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+                if (ifNoneMatch != null && matchesAny(ifNoneMatch, etag)) {
+                    response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                    return;
+                }
+            }
+            response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            if (!"HEAD".equals(request.getMethod())) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range: el rango solo se respeta si la representación no ha cambiado
+    private static boolean rangeStillValid(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    // Comparación débil, como exige If-None-Match
+    private static boolean matchesAny(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Solo dígitos por el patrón del rango: si no cabe en un long es mayor que cualquier fichero
+    // (inicio → 416, final → hasta el final del fichero, sufijo → el fichero entero)
+    private static long bytePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase(encoding)) {
+                return tokens.length == 1 || !tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
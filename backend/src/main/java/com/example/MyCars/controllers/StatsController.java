@@ -0,0 +1,30 @@
+package com.example.MyCars.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.MyCars.dto.InventoryStats;
+import com.example.MyCars.services.InventoryStatsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/stats")
+@Tag(name = "Stats", description = "Estadísticas del inventario")
+public class StatsController {
+
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+
+    @Operation(summary = "Obtener las estadísticas del inventario", description = "Recuentos por estado, marca, modelo y año, y precio y kilometraje medios, calculados en memoria")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas correctamente")
+    @GetMapping
+    public ResponseEntity<InventoryStats> getStats() {
+        return ResponseEntity.ok(inventoryStatsService.getStats());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.MyCars.controllers;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.MyCars.dto.Suggestion;
+import com.example.MyCars.services.SuggestService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/suggest")
+@Tag(name = "Suggest", description = "Autocompletado de marcas, modelos y matrículas")
+public class SuggestController {
+
+    private static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @Operation(summary = "Sugerencias de autocompletado", description = "Marcas, modelos y matrículas que empiezan por el texto indicado, sin distinguir mayúsculas ni tildes. Se resuelve en memoria, sin consultar la base de datos")
+    @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas correctamente")
+    @ApiResponse(responseCode = "400", description = "Límite fuera de rango o tipo desconocido")
+    @GetMapping
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Set<Suggestion.Type> types) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<Suggestion.Type> requested = types == null || types.isEmpty() ? EnumSet.allOf(Suggestion.Type.class) : types;
+        return ResponseEntity.ok(suggestService.suggest(q, requested, limit));
+    }
+}
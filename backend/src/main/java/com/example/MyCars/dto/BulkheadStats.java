@@ -0,0 +1,13 @@
+package com.example.MyCars.dto;
+
+public record BulkheadStats(
+        int permits,
+        int inUse,
+        int available,
+        int queueDepth,
+        int peakQueueDepth,
+        int maxQueue,
+        long timeoutMillis,
+        long acquired,
+        long rejected) {
+}
@@ -0,0 +1,22 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import com.example.MyCars.models.CarStatus;
+
+public record CarExportLine(
+        Long id,
+        String licensePlate,
+        String brand,
+        String model,
+        CarStatus status,
+        String color,
+        Integer expeditionYear,
+        Integer mileage,
+        BigDecimal sellingPrice,
+        LocalDate createdOn,
+        Instant updatedAt,
+        String description) {
+}
@@ -0,0 +1,19 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.example.MyCars.models.CarStatus;
+
+public record CarFacetQuery(
+        List<CarStatus> statuses,
+        List<Long> brandIds,
+        List<Long> modelIds,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Integer minYear,
+        Integer maxYear,
+        Integer minMileage,
+        Integer maxMileage,
+        int limit) {
+}
@@ -0,0 +1,28 @@
+package com.example.MyCars.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.example.MyCars.models.CarStatus;
+
+/**
+ * Vehículos que cumplen los filtros y, para cada faceta, cuántos habría al elegir cada valor.
+ * Los recuentos de una faceta ignoran el filtro de esa misma faceta (facetas disyuntivas).
+ */
+public record CarFacetResult(
+        long total,
+        List<Long> ids,
+        Map<CarStatus, Long> statuses,
+        List<Bucket> brands,
+        List<Bucket> models,
+        List<RangeBucket> priceBands,
+        Map<Integer, Long> years,
+        List<RangeBucket> mileageBands) {
+
+    public record Bucket(Long id, String name, long count) {
+    }
+
+    // Intervalo [from, to); un extremo nulo significa sin límite
+    public record RangeBucket(String key, Long from, Long to, long count) {
+    }
+}
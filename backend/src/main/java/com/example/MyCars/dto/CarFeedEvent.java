@@ -0,0 +1,17 @@
+package com.example.MyCars.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Cambio de un vehículo tal como se envía por /cars/events. {@code changes} solo trae los campos
+ * que han cambiado, con su valor nuevo (en un alta, todos los que tienen valor; en una baja, ninguno).
+ */
+public record CarFeedEvent(String id, Type type, Long carId, Long version, Map<String, Object> changes, Instant at) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.MyCars.dto;
+
+// Recuento, suma de ids y suma de versiones: comprobación barata de que un índice en memoria
+// coincide con la tabla. Cada modificación confirmada sube una versión, así que la última suma
+// detecta también los cambios que no añaden ni quitan filas
+public record CarIdChecksum(long count, long idSum, long versionSum) {
+}
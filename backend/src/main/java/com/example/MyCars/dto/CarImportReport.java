@@ -0,0 +1,6 @@
+package com.example.MyCars.dto;
+
+import java.util.List;
+
+public record CarImportReport(int total, int created, int failed, long elapsedMillis, List<CarImportResult> results) {
+}
@@ -0,0 +1,17 @@
+package com.example.MyCars.dto;
+
+public record CarImportResult(int index, String licensePlate, Status status, Long id, String error) {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static CarImportResult created(int index, String licensePlate, Long id) {
+        return new CarImportResult(index, licensePlate, Status.CREATED, id, null);
+    }
+
+    public static CarImportResult failed(int index, String licensePlate, String error) {
+        return new CarImportResult(index, licensePlate, Status.FAILED, null, error);
+    }
+}
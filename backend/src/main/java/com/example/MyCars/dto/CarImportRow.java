@@ -0,0 +1,15 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+
+public record CarImportRow(
+        String licensePlate,
+        String brand,
+        String model,
+        String status,
+        String color,
+        Integer expeditionYear,
+        Integer mileage,
+        BigDecimal sellingPrice,
+        String description) {
+}
@@ -0,0 +1,6 @@
+package com.example.MyCars.dto;
+
+import java.util.List;
+
+public record CarPage<T>(List<T> items, String nextCursor) {
+}
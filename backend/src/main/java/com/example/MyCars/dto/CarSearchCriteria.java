@@ -0,0 +1,19 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+
+import com.example.MyCars.models.CarStatus;
+
+public record CarSearchCriteria(
+        CarStatus status,
+        Long brandId,
+        Long modelId,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Integer minYear,
+        Integer maxYear,
+        Integer minMileage,
+        Integer maxMileage,
+        CarSortField sort,
+        boolean descending) {
+}
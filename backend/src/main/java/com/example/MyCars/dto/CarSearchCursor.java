@@ -0,0 +1,32 @@
+package com.example.MyCars.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición opaca dentro de una búsqueda paginada por keyset: valor de la
+ * columna de ordenación y el id del último vehículo devuelto.
+ */
+public record CarSearchCursor(CarSortField sort, boolean descending, Comparable<?> value, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + (descending ? "D" : "A") + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CarSearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            CarSortField sort = CarSortField.valueOf(parts[0]);
+            return new CarSearchCursor(sort, "D".equals(parts[1]), sort.parse(parts[2]), Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
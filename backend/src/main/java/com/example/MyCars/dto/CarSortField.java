@@ -0,0 +1,35 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+public enum CarSortField {
+    ID("id", Long::valueOf, CarSummary::id),
+    PRICE("sellingPrice", BigDecimal::new, CarSummary::sellingPrice),
+    YEAR("expeditionYear", Integer::valueOf, CarSummary::expeditionYear),
+    MILEAGE("mileage", Integer::valueOf, CarSummary::mileage),
+    CREATED("createdOn", LocalDate::parse, CarSummary::createdOn);
+
+    private final String attribute;
+    private final Function<String, Comparable<?>> parser;
+    private final Function<CarSummary, Comparable<?>> extractor;
+
+    CarSortField(String attribute, Function<String, Comparable<?>> parser, Function<CarSummary, Comparable<?>> extractor) {
+        this.attribute = attribute;
+        this.parser = parser;
+        this.extractor = extractor;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    public Comparable<?> valueOf(CarSummary car) {
+        return extractor.apply(car);
+    }
+}
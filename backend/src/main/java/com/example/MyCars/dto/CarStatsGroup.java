@@ -0,0 +1,18 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+
+import com.example.MyCars.models.CarStatus;
+
+/**
+ * Una fila del GROUP BY con el que se reconstruyen las estadísticas del inventario.
+ */
+public record CarStatsGroup(
+        Long modelId,
+        CarStatus status,
+        Integer expeditionYear,
+        BigDecimal sellingPrice,
+        long count,
+        Long mileageSum,
+        long mileageCount) {
+}
@@ -0,0 +1,27 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.MyCars.models.CarStatus;
+
+/**
+ * Lo que necesita una tarjeta del listado: datos básicos del vehículo, marca, modelo y la
+ * foto principal, todo resuelto en una sola consulta.
+ */
+public record CarSummary(
+        Long id,
+        String licensePlate,
+        Long brandId,
+        String brandName,
+        Long modelId,
+        String modelName,
+        BigDecimal sellingPrice,
+        CarStatus status,
+        String color,
+        Integer expeditionYear,
+        Integer mileage,
+        LocalDate createdOn,
+        Long mainPhotoId,
+        String mainPhotoUrl) {
+}
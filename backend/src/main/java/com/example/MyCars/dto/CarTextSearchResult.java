@@ -0,0 +1,13 @@
+package com.example.MyCars.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de la búsqueda de texto ordenado por relevancia (BM25). {@code highlight} es un
+ * fragmento de la descripción, ya escapado como HTML, con las coincidencias entre {@code <em>}.
+ */
+public record CarTextSearchResult(long total, List<Hit> hits) {
+
+    public record Hit(CarSummary car, double score, List<String> matchedFields, String highlight) {
+    }
+}
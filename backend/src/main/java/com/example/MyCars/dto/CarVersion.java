@@ -0,0 +1,5 @@
+package com.example.MyCars.dto;
+
+// Versión actual de un vehículo, para poner al día un índice sin releer las filas que no han cambiado
+public record CarVersion(Long id, Long version) {
+}
@@ -0,0 +1,27 @@
+package com.example.MyCars.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Foto inmutable del catálogo marca → modelos, con su serialización JSON ya calculada.
+ */
+public record CatalogSnapshot(long version, Instant builtAt, List<Brand> brands,
+        @JsonIgnore Map<Long, Brand> brandsById, @JsonIgnore byte[] json) {
+
+    public record Brand(Long id, String name, List<Model> models) {
+    }
+
+    public record Model(Long id, String name) {
+    }
+
+    public static CatalogSnapshot of(long version, Instant builtAt, List<Brand> brands, byte[] json) {
+        Map<Long, Brand> byId = brands.stream().collect(Collectors.toUnmodifiableMap(Brand::id, Function.identity()));
+        return new CatalogSnapshot(version, builtAt, List.copyOf(brands), byId, json);
+    }
+}
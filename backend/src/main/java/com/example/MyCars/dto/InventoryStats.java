@@ -0,0 +1,28 @@
+package com.example.MyCars.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import com.example.MyCars.models.CarStatus;
+
+public record InventoryStats(
+        long total,
+        Map<CarStatus, Long> byStatus,
+        List<BrandCount> byBrand,
+        PriceStats price,
+        Double averageMileage,
+        Map<Integer, Long> byYear,
+        Instant rebuiltAt,
+        Instant updatedAt) {
+
+    public record BrandCount(Long id, String name, long count, List<ModelCount> models) {
+    }
+
+    public record ModelCount(Long id, String name, long count) {
+    }
+
+    public record PriceStats(long count, BigDecimal average, BigDecimal min, BigDecimal max) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.MyCars.dto;
+
+// Foto cuyas variantes aún no se han generado; lo justo para encolar el trabajo sin cargar la entidad
+public record PendingVariantPhoto(Long id, Long carId, String url) {
+}
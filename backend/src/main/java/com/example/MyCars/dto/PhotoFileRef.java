@@ -0,0 +1,5 @@
+package com.example.MyCars.dto;
+
+// Lo que la reconciliación de ficheros necesita de cada foto, sin cargar la entidad
+public record PhotoFileRef(Long id, Long carId, String url, Boolean fileMissing) {
+}
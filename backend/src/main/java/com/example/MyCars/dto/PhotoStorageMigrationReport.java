@@ -0,0 +1,14 @@
+package com.example.MyCars.dto;
+
+import java.time.Instant;
+
+public record PhotoStorageMigrationReport(
+        Instant startedAt,
+        Instant finishedAt,
+        boolean running,
+        long scannedFiles,
+        long movedFiles,
+        long movedBytes,
+        long duplicateFiles,
+        long failedFiles) {
+}
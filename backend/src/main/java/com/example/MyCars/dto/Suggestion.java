@@ -0,0 +1,14 @@
+package com.example.MyCars.dto;
+
+/**
+ * Sugerencia de autocompletado. {@code detail} da contexto: la marca de un modelo o la marca y
+ * el modelo del vehículo de una matrícula.
+ */
+public record Suggestion(Type type, Long id, String label, String detail) {
+
+    public enum Type {
+        BRAND,
+        MODEL,
+        PLATE
+    }
+}
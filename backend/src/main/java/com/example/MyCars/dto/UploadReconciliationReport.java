@@ -0,0 +1,17 @@
+package com.example.MyCars.dto;
+
+import java.time.Instant;
+
+public record UploadReconciliationReport(
+        Instant startedAt,
+        Instant finishedAt,
+        long photoRows,
+        long missingFiles,
+        long restoredFiles,
+        long scannedFiles,
+        long quarantinedFiles,
+        long quarantinedBytes,
+        long deletedFiles,
+        long deletedTempFiles,
+        long freedBytes) {
+}
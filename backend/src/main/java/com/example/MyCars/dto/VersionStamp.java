@@ -0,0 +1,7 @@
+package com.example.MyCars.dto;
+
+import java.time.Instant;
+
+// Validadores HTTP de un recurso: ETag fuerte (sin comillas) y fecha de última modificación
+public record VersionStamp(String etag, Instant lastModified) {
+}
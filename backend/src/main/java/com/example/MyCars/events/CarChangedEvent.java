@@ -0,0 +1,21 @@
+package com.example.MyCars.events;
+
+/**
+ * Un vehículo se ha creado ({@code before} nulo), modificado o eliminado ({@code after} nulo).
+ * Se publica dentro de la transacción que hace el cambio; los oyentes usan
+ * {@code @TransactionalEventListener} para enterarse solo de los cambios confirmados.
+ */
+public record CarChangedEvent(Long carId, CarSnapshot before, CarSnapshot after) {
+
+    public static CarChangedEvent created(CarSnapshot after) {
+        return new CarChangedEvent(after.id(), null, after);
+    }
+
+    public static CarChangedEvent updated(CarSnapshot before, CarSnapshot after) {
+        return new CarChangedEvent(after.id(), before, after);
+    }
+
+    public static CarChangedEvent deleted(CarSnapshot before) {
+        return new CarChangedEvent(before.id(), before, null);
+    }
+}
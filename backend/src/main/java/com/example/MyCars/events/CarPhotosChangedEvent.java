@@ -0,0 +1,5 @@
+package com.example.MyCars.events;
+
+// Las fotos de un vehículo han cambiado (alta, baja, principal, orden, variantes generadas o fichero ausente)
+public record CarPhotosChangedEvent(Long carId) {
+}
@@ -0,0 +1,36 @@
+package com.example.MyCars.events;
+
+import java.math.BigDecimal;
+
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+
+/**
+ * Copia inmutable de los campos de un vehículo que interesan a los índices en memoria y al feed
+ * de cambios. La descripción solo la necesita el índice de texto; las cargas de los demás índices
+ * la dejan a nulo. La versión sirve para contrastar los índices con la tabla y para el feed.
+ */
+public record CarSnapshot(
+        Long id,
+        String licensePlate,
+        Long modelId,
+        CarStatus status,
+        BigDecimal sellingPrice,
+        Integer mileage,
+        Integer expeditionYear,
+        String color,
+        String description,
+        Long version) {
+
+    public CarSnapshot(Long id, String licensePlate, Long modelId, CarStatus status, BigDecimal sellingPrice,
+            Integer mileage, Integer expeditionYear, String color, Long version) {
+        this(id, licensePlate, modelId, status, sellingPrice, mileage, expeditionYear, color, null, version);
+    }
+
+    public static CarSnapshot of(CarModel car) {
+        return new CarSnapshot(car.getId(), car.getLicensePlate(),
+                car.getModel() != null ? car.getModel().getId() : null,
+                car.getStatus(), car.getSellingPrice(), car.getMileage(), car.getExpeditionYear(), car.getColor(),
+                car.getDescription(), car.getVersion());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.MyCars.events;
+
+import com.example.MyCars.dto.CatalogSnapshot;
+
+// El catálogo de marcas y modelos en memoria se ha reconstruido
+public record CatalogRebuiltEvent(CatalogSnapshot snapshot) {
+}
@@ -1,7 +1,11 @@
 package com.example.MyCars.models;
 
+import java.time.Instant;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.CascadeType;
@@ -11,7 +15,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -26,13 +32,23 @@ import lombok.Setter;
 public class BrandModel {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "brandIdGenerator")
+    @SequenceGenerator(name = "brandIdGenerator", sequenceName = "brands_id_seq", allocationSize = 50)
     @Column(unique = true, nullable = false)
     private Long id;
     
     @Column(unique = true, nullable = false)
     private String name;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     @OneToMany(mappedBy = "brand", cascade = CascadeType.ALL)
     @JsonIgnoreProperties("brand")
     private List<ModelModel> models;
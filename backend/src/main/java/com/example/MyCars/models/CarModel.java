@@ -1,9 +1,13 @@
 package com.example.MyCars.models;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -14,7 +18,10 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -30,7 +37,8 @@ import lombok.Setter;
 public class CarModel {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carIdGenerator")
+    @SequenceGenerator(name = "carIdGenerator", sequenceName = "cars_id_seq", allocationSize = 50)
     @Column(unique = true, nullable = false)
     private Long id;
 
@@ -54,10 +62,20 @@ public class CarModel {
     @Column(name = "created_on")
     private LocalDate createdOn;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     @Column(columnDefinition = "TEXT")
     private String description;
 
     @OneToMany(mappedBy = "car")
+    @OrderBy("position ASC, id ASC")
     @JsonIgnoreProperties("car")
     private List<CarPhotoModel> photos;
 
@@ -1,5 +1,8 @@
 package com.example.MyCars.models;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -9,6 +12,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,7 +28,8 @@ import lombok.Setter;
 public class CarPhotoModel {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carPhotoIdGenerator")
+    @SequenceGenerator(name = "carPhotoIdGenerator", sequenceName = "car_photos_id_seq", allocationSize = 50)
     @Column(unique = true, nullable = false)
     private Long id;
     
@@ -36,8 +41,39 @@ public class CarPhotoModel {
     @JsonIgnoreProperties({"photos"})
     private CarModel car;
     
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     private String caption;
     
     @Column(name = "is_main")
     private Boolean isMain;
+
+    // Orden de la foto dentro del vehículo (0 = primera)
+    @Column(name = "position")
+    private Integer position;
+
+    @Column(name = "variants_ready")
+    private Boolean variantsReady;
+
+    // El fichero no estaba en disco en la última reconciliación
+    @Column(name = "file_missing")
+    private Boolean fileMissing;
+
+    public Map<String, String> getVariants() {
+        Map<String, String> variants = new LinkedHashMap<>();
+        if (Boolean.TRUE.equals(variantsReady) && url != null) {
+            String prefix = url.substring(0, url.lastIndexOf('/') + 1);
+            String fileName = url.substring(url.lastIndexOf('/') + 1);
+            for (PhotoVariant variant : PhotoVariant.values()) {
+                variants.put(variant.name().toLowerCase(), prefix + variant.fileNameFor(fileName));
+            }
+        }
+        return variants;
+    }
+
+    public String getUrlForWidth(int width) {
+        PhotoVariant variant = PhotoVariant.smallestFitting(width);
+        return variant != null ? getVariants().getOrDefault(variant.name().toLowerCase(), url) : url;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.MyCars.models;
+
+public enum PhotoVariant {
+    THUMBNAIL(160),
+    CARD(480),
+    DETAIL(1280);
+
+    private final int width;
+
+    PhotoVariant(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Nombre del fichero de la variante: {@code <nombre>_w<ancho>.<jpg|png>}.
+     * Las imágenes PNG conservan el formato (transparencias); el resto se recodifican a JPEG.
+     */
+    public String fileNameFor(String originalFileName) {
+        int dot = originalFileName.lastIndexOf('.');
+        String base = dot > 0 ? originalFileName.substring(0, dot) : originalFileName;
+        String extension = dot > 0 ? originalFileName.substring(dot + 1).toLowerCase() : "";
+        return base + "_w" + width + ("png".equals(extension) ? ".png" : ".jpg");
+    }
+
+    /**
+     * La variante más pequeña cuyo ancho cubre el solicitado, o null si ninguna basta.
+     */
+    public static PhotoVariant smallestFitting(int requestedWidth) {
+        for (PhotoVariant variant : values()) {
+            if (variant.width >= requestedWidth) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.MyCars.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.MyCars.models.BrandModel;
 
 @Repository
-public interface BrandRepository extends JpaRepository<BrandModel, Long> {
+public interface BrandRepository extends JpaRepository<BrandModel, Long>, BrandRepositoryCustom {
+
+    @Query("SELECT DISTINCT b FROM BrandModel b LEFT JOIN FETCH b.models ORDER BY b.name")
+    List<BrandModel> findAllWithModels();
 } 
\ No newline at end of file
@@ -1,14 +1,77 @@
 package com.example.MyCars.repositories;
 
+import java.util.Collection;
 import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.MyCars.dto.PendingVariantPhoto;
+import com.example.MyCars.dto.PhotoFileRef;
 import com.example.MyCars.models.CarModel;
 import com.example.MyCars.models.CarPhotoModel;
 
 @Repository
-public interface CarPhotoRepository extends JpaRepository<CarPhotoModel, Long> {
-    List<CarPhotoModel> findByCar(CarModel car);
+public interface CarPhotoRepository extends JpaRepository<CarPhotoModel, Long>, CarPhotoRepositoryCustom {
+    List<CarPhotoModel> findByCarIdOrderByPositionAscIdAsc(Long carId);
     CarPhotoModel findByCarAndIsMainTrue(CarModel car);
+
+    @Query("SELECT p.id FROM CarPhotoModel p WHERE p.car.id = :carId")
+    List<Long> findIdsByCarId(@Param("carId") Long carId);
+
+    @Query("SELECT COALESCE(MAX(p.position) + 1, 0) FROM CarPhotoModel p WHERE p.car.id = :carId")
+    int findNextPosition(@Param("carId") Long carId);
+
+    long countByUrl(String url);
+
+    @Query("SELECT p.url FROM CarPhotoModel p WHERE p.car.id = :carId")
+    List<String> findUrlsByCarId(@Param("carId") Long carId);
+
+    @Modifying
+    @Query("DELETE FROM CarPhotoModel p WHERE p.car.id = :carId")
+    int deleteByCarId(@Param("carId") Long carId);
+
+    // Reconciliación de ficheros: las fotos por tramos en orden de id, sin entidades
+    @Query("SELECT new com.example.MyCars.dto.PhotoFileRef(p.id, p.car.id, p.url, p.fileMissing) FROM CarPhotoModel p"
+            + " WHERE p.id > :afterId ORDER BY p.id")
+    List<PhotoFileRef> findFileRefs(@Param("afterId") long afterId, Limit limit);
+
+    // Fotos que usan alguno de los ficheros candidatos a huérfano, por URL o por hash de contenido
+    @Query("SELECT p.url FROM CarPhotoModel p WHERE p.url IN :urls OR p.contentHash IN :hashes")
+    List<String> findUrlsReferencing(@Param("urls") Collection<String> urls, @Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query("UPDATE CarPhotoModel p SET p.fileMissing = :missing WHERE p.id IN :ids")
+    int updateFileMissing(@Param("ids") Collection<Long> ids, @Param("missing") boolean missing);
+
+    @Query("SELECT p FROM CarPhotoModel p JOIN FETCH p.car c JOIN FETCH c.model m JOIN FETCH m.brand"
+            + " WHERE c.id IN :carIds AND p.isMain = true ORDER BY p.id")
+    List<CarPhotoModel> findMainByCarIdIn(@Param("carIds") Collection<Long> carIds);
+
+    @Modifying
+    @Query("UPDATE CarPhotoModel p SET p.isMain = false WHERE p.car = :car AND p.isMain = true")
+    int clearMainPhoto(@Param("car") CarModel car);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CarPhotoModel p SET p.isMain = false WHERE p.car.id = :carId AND p.isMain = true AND p.id <> :photoId")
+    int clearMainPhotoExcept(@Param("carId") Long carId, @Param("photoId") Long photoId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CarPhotoModel p SET p.isMain = true WHERE p.id = :photoId AND p.car.id = :carId")
+    int markMain(@Param("carId") Long carId, @Param("photoId") Long photoId);
+
+    // Recuperación de variantes pendientes: por tramos en orden de id, sin las fotos cuyo fichero falta
+    @Query("SELECT new com.example.MyCars.dto.PendingVariantPhoto(p.id, p.car.id, p.url) FROM CarPhotoModel p"
+            + " WHERE p.variantsReady = false AND p.fileMissing = false AND p.id > :afterId ORDER BY p.id")
+    List<PendingVariantPhoto> findPendingVariants(@Param("afterId") long afterId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CarPhotoModel p SET p.variantsReady = true WHERE p.id = :id")
+    int markVariantsReady(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.example.MyCars.repositories;
+
+import java.util.List;
+
+public interface CarPhotoRepositoryCustom {
+
+    int updatePositions(Long carId, List<Long> orderedPhotoIds);
+}
@@ -0,0 +1,37 @@
+package com.example.MyCars.repositories;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+public class CarPhotoRepositoryImpl implements CarPhotoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Un único UPDATE con CASE: cada foto recibe como posición su índice en la lista
+    @Override
+    public int updatePositions(Long carId, List<Long> orderedPhotoIds) {
+        if (orderedPhotoIds.isEmpty()) {
+            return 0;
+        }
+        StringBuilder jpql = new StringBuilder("UPDATE CarPhotoModel p SET p.position = CASE p.id");
+        for (int i = 0; i < orderedPhotoIds.size(); i++) {
+            jpql.append(" WHEN :id").append(i).append(" THEN ").append(i);
+        }
+        jpql.append(" ELSE p.position END WHERE p.car.id = :carId AND p.id IN :ids");
+
+        entityManager.flush();
+        Query update = entityManager.createQuery(jpql.toString())
+                .setParameter("carId", carId)
+                .setParameter("ids", orderedPhotoIds);
+        for (int i = 0; i < orderedPhotoIds.size(); i++) {
+            update.setParameter("id" + i, orderedPhotoIds.get(i));
+        }
+        int updated = update.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
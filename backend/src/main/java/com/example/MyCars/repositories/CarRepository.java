@@ -1,17 +1,114 @@
 package com.example.MyCars.repositories;
 
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.MyCars.dto.CarExportLine;
+import com.example.MyCars.dto.CarIdChecksum;
+import com.example.MyCars.dto.CarStatsGroup;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.dto.CarVersion;
+import com.example.MyCars.events.CarSnapshot;
 import com.example.MyCars.models.CarModel;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface CarRepository extends CrudRepository<CarModel, Long> {
+public interface CarRepository extends CrudRepository<CarModel, Long>, CarRepositoryCustom {
     
     @Query("SELECT c FROM CarModel c JOIN FETCH c.model m JOIN FETCH m.brand")
     List<CarModel> findAllWithDetails();
+
+    @Query("SELECT c FROM CarModel c JOIN FETCH c.model m JOIN FETCH m.brand LEFT JOIN FETCH c.photos WHERE c.id IN :ids")
+    List<CarModel> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Foto principal de cada vehículo; si hubiera varias, la de menor id, para no repetir el vehículo
+    String MAIN_PHOTO_ID = "(SELECT MIN(mp.id) FROM CarPhotoModel mp WHERE mp.car = c AND mp.isMain = true)";
+
+    // Listado ligero: una fila por vehículo con su foto principal, sin cargar entidades
+    @Query("SELECT new com.example.MyCars.dto.CarSummary(c.id, c.licensePlate, b.id, b.name, m.id, m.name,"
+            + " c.sellingPrice, c.status, c.color, c.expeditionYear, c.mileage, c.createdOn, p.id, p.url)"
+            + " FROM CarModel c JOIN c.model m JOIN m.brand b LEFT JOIN c.photos p ON p.id = " + MAIN_PHOTO_ID
+            + " ORDER BY c.id")
+    List<CarSummary> findAllSummaries();
+
+    // Borrado: bloquea la fila hasta el final de la transacción; otro borrado o un PATCH esperan
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CarModel c WHERE c.id = :id")
+    Optional<CarModel> findByIdForUpdate(@Param("id") Long id);
+
+    // Base de la reconstrucción de estadísticas: una fila por combinación modelo/estado/año/precio
+    @Query("SELECT new com.example.MyCars.dto.CarStatsGroup(c.model.id, c.status, c.expeditionYear, c.sellingPrice,"
+            + " COUNT(c), SUM(c.mileage), COUNT(c.mileage))"
+            + " FROM CarModel c GROUP BY c.model.id, c.status, c.expeditionYear, c.sellingPrice")
+    List<CarStatsGroup> findStatsGroups();
+
+    @Query("SELECT new com.example.MyCars.dto.CarIdChecksum(COUNT(c), COALESCE(SUM(c.id), 0), COALESCE(SUM(c.version), 0))"
+            + " FROM CarModel c")
+    CarIdChecksum findIdChecksum();
+
+    @Query("SELECT c.licensePlate FROM CarModel c WHERE c.licensePlate IN :plates")
+    List<String> findExistingLicensePlates(@Param("plates") Collection<String> plates);
+
+    // Carga de los índices en memoria: solo las columnas que necesitan, sin entidades
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.MyCars.events.CarSnapshot(c.id, c.licensePlate, c.model.id, c.status, c.sellingPrice,"
+            + " c.mileage, c.expeditionYear, c.color, c.version) FROM CarModel c ORDER BY c.id")
+    Stream<CarSnapshot> streamSnapshots();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.MyCars.events.CarSnapshot(c.id, c.licensePlate, c.model.id, c.status, c.sellingPrice,"
+            + " c.mileage, c.expeditionYear, c.color, c.description, c.version) FROM CarModel c ORDER BY c.id")
+    Stream<CarSnapshot> streamSnapshotsWithDescription();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.MyCars.dto.CarVersion(c.id, c.version) FROM CarModel c")
+    Stream<CarVersion> streamVersions();
+
+    @Query("SELECT new com.example.MyCars.dto.CarVersion(c.id, c.version) FROM CarModel c WHERE c.id IN :ids")
+    List<CarVersion> findVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.MyCars.events.CarSnapshot(c.id, c.licensePlate, c.model.id, c.status, c.sellingPrice,"
+            + " c.mileage, c.expeditionYear, c.color, c.description, c.version) FROM CarModel c WHERE c.id IN :ids")
+    List<CarSnapshot> findSnapshotsWithDescriptionByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.MyCars.dto.CarSummary(c.id, c.licensePlate, b.id, b.name, m.id, m.name,"
+            + " c.sellingPrice, c.status, c.color, c.expeditionYear, c.mileage, c.createdOn, p.id, p.url)"
+            + " FROM CarModel c JOIN c.model m JOIN m.brand b LEFT JOIN c.photos p ON p.id = " + MAIN_PHOTO_ID
+            + " WHERE c.id IN :ids")
+    List<CarSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Exportación por tramos: cada tramo es una consulta corta por clave primaria a partir del último id
+    @Query("SELECT new com.example.MyCars.dto.CarExportLine(c.id, c.licensePlate, b.name, m.name, c.status, c.color,"
+            + " c.expeditionYear, c.mileage, c.sellingPrice, c.createdOn, c.updatedAt, c.description)"
+            + " FROM CarModel c JOIN c.model m JOIN m.brand b WHERE c.id > :afterId ORDER BY c.id")
+    List<CarExportLine> findExportLines(@Param("afterId") long afterId, Limit limit);
+
+    @Query("SELECT new com.example.MyCars.dto.CarExportLine(c.id, c.licensePlate, b.name, m.name, c.status, c.color,"
+            + " c.expeditionYear, c.mileage, c.sellingPrice, c.createdOn, c.updatedAt, c.description)"
+            + " FROM CarModel c JOIN c.model m JOIN m.brand b WHERE c.id > :afterId AND c.updatedAt >= :since ORDER BY c.id")
+    List<CarExportLine> findExportLinesUpdatedSince(@Param("afterId") long afterId, @Param("since") Instant since, Limit limit);
 }
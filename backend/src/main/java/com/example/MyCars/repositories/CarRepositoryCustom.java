@@ -0,0 +1,15 @@
+package com.example.MyCars.repositories;
+
+import java.util.List;
+import java.util.Map;
+
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSearchCursor;
+import com.example.MyCars.dto.CarSummary;
+
+public interface CarRepositoryCustom {
+
+    List<CarSummary> search(CarSearchCriteria criteria, CarSearchCursor after, int limit);
+
+    int patch(Long id, Long expectedVersion, Map<String, Object> values);
+}
@@ -0,0 +1,127 @@
+package com.example.MyCars.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSearchCursor;
+import com.example.MyCars.dto.CarSortField;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.ModelModel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+public class CarRepositoryImpl implements CarRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<CarSummary> search(CarSearchCriteria criteria, CarSearchCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarSummary> query = cb.createQuery(CarSummary.class);
+        Root<CarModel> car = query.from(CarModel.class);
+        Join<CarModel, ModelModel> model = car.join("model");
+        Join<ModelModel, BrandModel> brand = model.join("brand");
+        // La foto principal entra en la misma consulta en lugar de cargar la colección de fotos. Se
+        // elige por subconsulta (la de menor id, como en la migración V8) para que cada vehículo
+        // dé una sola fila antes del LIMIT aunque tuviera varias marcadas como principales
+        Subquery<Long> mainPhotoId = query.subquery(Long.class);
+        Root<CarPhotoModel> photo = mainPhotoId.from(CarPhotoModel.class);
+        mainPhotoId.select(cb.min(photo.get("id")))
+                .where(cb.equal(photo.get("car"), car), cb.isTrue(photo.get("isMain")));
+        Join<CarModel, CarPhotoModel> mainPhoto = car.join("photos", JoinType.LEFT);
+        mainPhoto.on(cb.equal(mainPhoto.get("id"), mainPhotoId));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.status() != null) {
+            predicates.add(cb.equal(car.get("status"), criteria.status()));
+        }
+        if (criteria.brandId() != null) {
+            predicates.add(cb.equal(brand.get("id"), criteria.brandId()));
+        }
+        if (criteria.modelId() != null) {
+            predicates.add(cb.equal(model.get("id"), criteria.modelId()));
+        }
+        if (criteria.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(car.get("sellingPrice"), criteria.minPrice()));
+        }
+        if (criteria.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(car.get("sellingPrice"), criteria.maxPrice()));
+        }
+        if (criteria.minYear() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(car.get("expeditionYear"), criteria.minYear()));
+        }
+        if (criteria.maxYear() != null) {
+            predicates.add(cb.lessThanOrEqualTo(car.get("expeditionYear"), criteria.maxYear()));
+        }
+        if (criteria.minMileage() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(car.get("mileage"), criteria.minMileage()));
+        }
+        if (criteria.maxMileage() != null) {
+            predicates.add(cb.lessThanOrEqualTo(car.get("mileage"), criteria.maxMileage()));
+        }
+
+        CarSortField sort = criteria.sort();
+        Path<Long> id = car.get("id");
+        Path<Comparable> sortPath = car.get(sort.getAttribute());
+        if (sort != CarSortField.ID) {
+            // Las columnas de ordenación son NOT NULL en el esquema; el keyset no admite nulos
+            predicates.add(cb.isNotNull(sortPath));
+        }
+
+        // Keyset: (valor, id) estrictamente posterior a la última fila de la página anterior
+        if (after != null) {
+            Comparable value = after.value();
+            if (sort == CarSortField.ID) {
+                predicates.add(criteria.descending() ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id()));
+            } else {
+                Predicate beyondValue = criteria.descending()
+                        ? cb.lessThan(sortPath, value)
+                        : cb.greaterThan(sortPath, value);
+                Predicate sameValue = cb.and(
+                        cb.equal(sortPath, value),
+                        criteria.descending() ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id()));
+                predicates.add(cb.or(beyondValue, sameValue));
+            }
+        }
+
+        query.select(cb.construct(CarSummary.class,
+                        car.get("id"), car.get("licensePlate"), brand.get("id"), brand.get("name"),
+                        model.get("id"), model.get("name"), car.get("sellingPrice"), car.get("status"),
+                        car.get("color"), car.get("expeditionYear"), car.get("mileage"), car.get("createdOn"),
+                        mainPhoto.get("id"), mainPhoto.get("url")))
+                .where(predicates.toArray(Predicate[]::new));
+        List<Expression<?>> order = sort == CarSortField.ID ? List.of(id) : List.of(sortPath, id);
+        query.orderBy(order.stream()
+                .map(expression -> criteria.descending() ? cb.desc(expression) : cb.asc(expression))
+                .toList());
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int patch(Long id, Long expectedVersion, Map<String, Object> values) {
+        return PatchUpdates.execute(entityManager, CarModel.class, id, expectedVersion, values);
+    }
+}
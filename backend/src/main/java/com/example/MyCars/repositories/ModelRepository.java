@@ -9,6 +9,6 @@ import com.example.MyCars.models.BrandModel;
 import com.example.MyCars.models.ModelModel;
 
 @Repository
-public interface ModelRepository extends JpaRepository<ModelModel, Long> {
+public interface ModelRepository extends JpaRepository<ModelModel, Long>, ModelRepositoryCustom {
     List<ModelModel> findByBrand(BrandModel brand);
 } 
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.example.MyCars.repositories;
+
+import java.util.Map;
+
+public interface ModelRepositoryCustom {
+
+    int patch(Long id, Long expectedVersion, Map<String, Object> values);
+}
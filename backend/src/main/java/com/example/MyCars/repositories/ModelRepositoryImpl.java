@@ -0,0 +1,22 @@
+package com.example.MyCars.repositories;
+
+import java.util.Map;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.MyCars.models.ModelModel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class ModelRepositoryImpl implements ModelRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int patch(Long id, Long expectedVersion, Map<String, Object> values) {
+        return PatchUpdates.execute(entityManager, ModelModel.class, id, expectedVersion, values);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.MyCars.repositories;
+
+import java.time.Instant;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * UPDATE en bloque de las columnas indicadas de una entidad con versión. La versión se
+ * incrementa en la misma sentencia y, si se pasa la esperada, solo se actualiza la fila que
+ * sigue en ella: 0 filas significa que no existe o que otro la ha modificado antes.
+ */
+final class PatchUpdates {
+
+    private PatchUpdates() {
+    }
+
+    static int execute(EntityManager entityManager, Class<?> entityType, Long id, Long expectedVersion, Map<String, Object> values) {
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entityType.getSimpleName()).append(" e SET");
+        int index = 0;
+        for (String attribute : values.keySet()) {
+            jpql.append(" e.").append(attribute).append(" = :p").append(index++).append(",");
+        }
+        // @UpdateTimestamp no se aplica a las sentencias en bloque
+        jpql.append(" e.version = e.version + 1, e.updatedAt = :updatedAt WHERE e.id = :id");
+        if (expectedVersion != null) {
+            jpql.append(" AND e.version = :version");
+        }
+
+        entityManager.flush();
+        Query update = entityManager.createQuery(jpql.toString())
+                .setParameter("updatedAt", Instant.now())
+                .setParameter("id", id);
+        index = 0;
+        for (Object value : values.values()) {
+            update.setParameter("p" + index++, value);
+        }
+        if (expectedVersion != null) {
+            update.setParameter("version", expectedVersion);
+        }
+        int updated = update.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
@@ -1,19 +1,31 @@
 package com.example.MyCars.services;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import com.example.MyCars.models.BrandModel;
 import com.example.MyCars.repositories.BrandRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class BrandService {
 
+    private static final Map<String, MergePatch.Field> PATCH_FIELDS = Map.of(
+            "name", new MergePatch.Field(String.class, false));
+
     @Autowired
     private BrandRepository brandRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     public List<BrandModel> getAllBrands() {
         return brandRepository.findAll();
@@ -24,10 +36,29 @@ public class BrandService {
     }
     
     public BrandModel saveBrand(BrandModel brand) {
-        return brandRepository.save(brand);
+        BrandModel saved = brandRepository.save(brand);
+        catalogService.rebuild();
+        return saved;
+    }
+    
+    // JSON Merge Patch con un único UPDATE; con "version" en el cuerpo, solo si la marca sigue en ella
+    public Optional<BrandModel> patchBrand(Long id, Map<String, Object> body) {
+        MergePatch patch = MergePatch.parse(body, PATCH_FIELDS, objectMapper);
+        if (patch.values().isEmpty()) {
+            return brandRepository.findById(id);
+        }
+        if (brandRepository.patch(id, patch.expectedVersion(), patch.values()) == 0) {
+            if (!brandRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new ObjectOptimisticLockingFailureException(BrandModel.class, id);
+        }
+        catalogService.rebuild();
+        return brandRepository.findById(id);
     }
     
     public void deleteBrand(Long id) {
         brandRepository.deleteById(id);
+        catalogService.rebuild();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.MyCars.dto.CarExportLine;
+import com.example.MyCars.repositories.CarRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+/**
+ * Exportación NDJSON del inventario por tramos de clave primaria: cada tramo es una consulta
+ * corta con su propia transacción, y el permiso del bulkhead y la conexión se devuelven antes
+ * de escribir el tramo al cliente. Un cliente lento no retiene ninguna conexión. No es una foto
+ * fija: un vehículo que cambia durante la exportación sale con sus datos en el momento de leer
+ * su tramo, pero cada vehículo sale una sola vez.
+ */
+@Service
+public class CarExportService {
+
+    @Value("${app.cars.export.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public long exportNdjson(Instant updatedSince, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            long afterId = 0;
+            List<CarExportLine> chunk;
+            do {
+                chunk = updatedSince == null
+                        ? carRepository.findExportLines(afterId, Limit.of(chunkSize))
+                        : carRepository.findExportLinesUpdatedSince(afterId, updatedSince, Limit.of(chunkSize));
+                for (CarExportLine line : chunk) {
+                    writer.write(line);
+                }
+                writer.flush();
+                count += chunk.size();
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).id();
+                }
+            } while (chunk.size() == chunkSize);
+            if (count > 0) {
+                out.write('\n');
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.MyCars.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CarFacetQuery;
+import com.example.MyCars.dto.CarFacetResult;
+import com.example.MyCars.dto.CarIdChecksum;
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.repositories.CarRepository;
+
+/**
+ * Índice de facetas en memoria: columnas de tipos primitivos (precio, año, kilometraje) y un
+ * BitSet por estado y por modelo. Las marcas se resuelven como la unión de sus modelos según el
+ * catálogo. Se carga al arrancar, se actualiza con cada cambio confirmado de un vehículo y se
+ * contrasta periódicamente con la tabla (recuento, suma de ids y suma de versiones, para notar
+ * también las modificaciones que no han llegado como evento).
+ */
+@Service
+public class CarFacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarFacetService.class);
+
+    // Límites inferiores de cada tramo; el último no tiene límite superior
+    private static final long[] PRICE_BANDS = {0, 5_000, 10_000, 20_000, 30_000, 50_000};
+    private static final long[] MILEAGE_BANDS = {0, 25_000, 50_000, 100_000, 150_000};
+
+    private static final CarStatus[] STATUSES = CarStatus.values();
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private ColumnStore store = new ColumnStore();
+
+    // Cambios recibidos mientras se reconstruye; se vuelven a aplicar sobre el índice nuevo
+    private List<CarChangedEvent> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            ColumnStore rebuilt = new ColumnStore();
+            boolean loaded = false;
+            try {
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                databaseBulkhead.call(() -> readOnly.execute(status -> {
+                    try (Stream<CarSnapshot> cars = carRepository.streamSnapshots()) {
+                        cars.forEach(rebuilt::upsert);
+                    }
+                    return null;
+                }));
+                loaded = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (loaded) {
+                        // Upsert y borrado son idempotentes: repetir un cambio ya leído de la tabla no lo duplica
+                        pendingDuringRebuild.forEach(rebuilt::apply);
+                        store = rebuilt;
+                    }
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.facets.check-interval-ms:300000}", fixedDelayString = "${app.facets.check-interval-ms:300000}")
+    public void verify() {
+        CarIdChecksum database = carRepository.findIdChecksum();
+        CarIdChecksum local;
+        lock.readLock().lock();
+        try {
+            local = new CarIdChecksum(store.count, store.idSum, store.versionSum);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!database.equals(local)) {
+            log.warn("Índice de facetas desincronizado ({} en memoria, {} en base de datos); se reconstruye", local, database);
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            store.apply(event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CarFacetResult search(CarFacetQuery query) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        lock.readLock().lock();
+        try {
+            return store.search(query, catalog);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Almacén por columnas: cada vehículo ocupa una posición (slot) en los arrays y en los BitSet.
+     * Los huecos que dejan los borrados se reutilizan.
+     */
+    private static final class ColumnStore {
+
+        private static final int STATUS = 0, BRAND = 1, MODEL = 2, PRICE = 3, YEAR = 4, MILEAGE = 5, DIMENSIONS = 6;
+
+        private long[] ids = new long[1024];
+        private double[] prices = new double[1024];
+        private int[] years = new int[1024];
+        private int[] mileages = new int[1024];
+        private long[] modelIds = new long[1024];
+        private byte[] statuses = new byte[1024];
+        private long[] versions = new long[1024];
+        private int size;
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+
+        private final BitSet live = new BitSet();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final BitSet[] byStatus = new BitSet[STATUSES.length];
+        private final Map<Long, BitSet> byModel = new HashMap<>();
+
+        private long count;
+        private long idSum;
+        private long versionSum;
+
+        ColumnStore() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new BitSet();
+            }
+        }
+
+        void apply(CarChangedEvent event) {
+            if (event.after() != null) {
+                upsert(event.after());
+            } else {
+                remove(event.carId());
+            }
+        }
+
+        void upsert(CarSnapshot car) {
+            Integer existing = slotById.get(car.id());
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unindex(slot);
+                versionSum -= versions[slot];
+            } else {
+                slot = allocate();
+                slotById.put(car.id(), slot);
+                count++;
+                idSum += car.id();
+            }
+            ids[slot] = car.id();
+            prices[slot] = car.sellingPrice() == null ? Double.NaN : car.sellingPrice().doubleValue();
+            years[slot] = car.expeditionYear() == null ? Integer.MIN_VALUE : car.expeditionYear();
+            mileages[slot] = car.mileage() == null ? Integer.MIN_VALUE : car.mileage();
+            modelIds[slot] = car.modelId() == null ? 0 : car.modelId();
+            statuses[slot] = (byte) (car.status() == null ? -1 : car.status().ordinal());
+            // Las filas escritas sin Hibernate pueden no tener versión; en la suma de la tabla no cuentan
+            versions[slot] = car.version() == null ? 0 : car.version();
+            versionSum += versions[slot];
+
+            live.set(slot);
+            if (statuses[slot] >= 0) {
+                byStatus[statuses[slot]].set(slot);
+            }
+            if (modelIds[slot] != 0) {
+                byModel.computeIfAbsent(modelIds[slot], id -> new BitSet()).set(slot);
+            }
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            unindex(slot);
+            live.clear(slot);
+            count--;
+            idSum -= id;
+            versionSum -= versions[slot];
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        private void unindex(int slot) {
+            if (statuses[slot] >= 0) {
+                byStatus[statuses[slot]].clear(slot);
+            }
+            BitSet model = byModel.get(modelIds[slot]);
+            if (model != null) {
+                model.clear(slot);
+                if (model.isEmpty()) {
+                    byModel.remove(modelIds[slot]);
+                }
+            }
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                years = Arrays.copyOf(years, capacity);
+                mileages = Arrays.copyOf(mileages, capacity);
+                modelIds = Arrays.copyOf(modelIds, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            return size++;
+        }
+
+        CarFacetResult search(CarFacetQuery query, CatalogSnapshot catalog) {
+            // Una máscara por dimensión filtrada; null = sin filtro en esa dimensión
+            BitSet[] masks = new BitSet[DIMENSIONS];
+            if (query.statuses() != null && !query.statuses().isEmpty()) {
+                masks[STATUS] = new BitSet();
+                query.statuses().forEach(status -> masks[STATUS].or(byStatus[status.ordinal()]));
+            }
+            if (query.brandIds() != null && !query.brandIds().isEmpty()) {
+                masks[BRAND] = new BitSet();
+                for (Long brandId : query.brandIds()) {
+                    CatalogSnapshot.Brand brand = catalog.brandsById().get(brandId);
+                    if (brand != null) {
+                        brand.models().forEach(model -> orModel(masks[BRAND], model.id()));
+                    }
+                }
+            }
+            if (query.modelIds() != null && !query.modelIds().isEmpty()) {
+                masks[MODEL] = new BitSet();
+                query.modelIds().forEach(modelId -> orModel(masks[MODEL], modelId));
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                double min = query.minPrice() == null ? Double.NEGATIVE_INFINITY : query.minPrice().doubleValue();
+                double max = query.maxPrice() == null ? Double.POSITIVE_INFINITY : query.maxPrice().doubleValue();
+                masks[PRICE] = new BitSet();
+                for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                    if (prices[slot] >= min && prices[slot] <= max) {
+                        masks[PRICE].set(slot);
+                    }
+                }
+            }
+            if (query.minYear() != null || query.maxYear() != null) {
+                masks[YEAR] = intRange(years, query.minYear(), query.maxYear());
+            }
+            if (query.minMileage() != null || query.maxMileage() != null) {
+                masks[MILEAGE] = intRange(mileages, query.minMileage(), query.maxMileage());
+            }
+
+            BitSet matching = intersect(masks, -1);
+            // Los huecos libres se reutilizan y su orden no es el de los ids: se ordenan todos antes de recortar
+            long[] matched = new long[matching.cardinality()];
+            int found = 0;
+            for (int slot = matching.nextSetBit(0); slot >= 0; slot = matching.nextSetBit(slot + 1)) {
+                matched[found++] = ids[slot];
+            }
+            Arrays.sort(matched);
+            List<Long> matchingIds = new ArrayList<>(Math.min(query.limit(), found));
+            for (int i = 0; i < found && i < query.limit(); i++) {
+                matchingIds.add(matched[i]);
+            }
+
+            // Cada faceta se cuenta sobre el resto de filtros, sin el suyo propio
+            Map<CarStatus, Long> statusCounts = new EnumMap<>(CarStatus.class);
+            BitSet base = facetBase(masks, STATUS, matching);
+            for (CarStatus status : STATUSES) {
+                BitSet withStatus = (BitSet) byStatus[status.ordinal()].clone();
+                withStatus.and(base);
+                if (!withStatus.isEmpty()) {
+                    statusCounts.put(status, (long) withStatus.cardinality());
+                }
+            }
+
+            Map<Long, Long> brandModelCounts = countModels(facetBase(masks, BRAND, matching));
+            List<CarFacetResult.Bucket> brands = new ArrayList<>();
+            for (CatalogSnapshot.Brand brand : catalog.brands()) {
+                long brandCount = brand.models().stream().mapToLong(model -> brandModelCounts.getOrDefault(model.id(), 0L)).sum();
+                if (brandCount > 0) {
+                    brands.add(new CarFacetResult.Bucket(brand.id(), brand.name(), brandCount));
+                }
+            }
+
+            Map<Long, String> modelNames = new HashMap<>();
+            catalog.brands().forEach(brand -> brand.models().forEach(model -> modelNames.put(model.id(), model.name())));
+            List<CarFacetResult.Bucket> models = new ArrayList<>();
+            countModels(facetBase(masks, MODEL, matching))
+                    .forEach((modelId, modelCount) -> models.add(new CarFacetResult.Bucket(modelId, modelNames.get(modelId), modelCount)));
+
+            long[] priceCounts = new long[PRICE_BANDS.length];
+            BitSet priceBase = facetBase(masks, PRICE, matching);
+            for (int slot = priceBase.nextSetBit(0); slot >= 0; slot = priceBase.nextSetBit(slot + 1)) {
+                if (!Double.isNaN(prices[slot])) {
+                    priceCounts[band(PRICE_BANDS, prices[slot])]++;
+                }
+            }
+
+            Map<Integer, Long> yearCounts = new TreeMap<>();
+            BitSet yearBase = facetBase(masks, YEAR, matching);
+            for (int slot = yearBase.nextSetBit(0); slot >= 0; slot = yearBase.nextSetBit(slot + 1)) {
+                if (years[slot] != Integer.MIN_VALUE) {
+                    yearCounts.merge(years[slot], 1L, Long::sum);
+                }
+            }
+
+            long[] mileageCounts = new long[MILEAGE_BANDS.length];
+            BitSet mileageBase = facetBase(masks, MILEAGE, matching);
+            for (int slot = mileageBase.nextSetBit(0); slot >= 0; slot = mileageBase.nextSetBit(slot + 1)) {
+                if (mileages[slot] != Integer.MIN_VALUE) {
+                    mileageCounts[band(MILEAGE_BANDS, mileages[slot])]++;
+                }
+            }
+
+            Comparator<CarFacetResult.Bucket> byCount = Comparator.comparingLong(CarFacetResult.Bucket::count).reversed()
+                    .thenComparing(CarFacetResult.Bucket::id);
+            brands.sort(byCount);
+            models.sort(byCount);
+            return new CarFacetResult(matching.cardinality(), matchingIds, statusCounts, brands, models,
+                    rangeBuckets(PRICE_BANDS, priceCounts), yearCounts, rangeBuckets(MILEAGE_BANDS, mileageCounts));
+        }
+
+        private void orModel(BitSet target, Long modelId) {
+            BitSet model = byModel.get(modelId);
+            if (model != null) {
+                target.or(model);
+            }
+        }
+
+        private BitSet intRange(int[] column, Integer min, Integer max) {
+            int low = min == null ? Integer.MIN_VALUE + 1 : min;
+            int high = max == null ? Integer.MAX_VALUE : max;
+            BitSet mask = new BitSet();
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (column[slot] >= low && column[slot] <= high) {
+                    mask.set(slot);
+                }
+            }
+            return mask;
+        }
+
+        private BitSet intersect(BitSet[] masks, int skip) {
+            BitSet result = (BitSet) live.clone();
+            for (int dimension = 0; dimension < masks.length; dimension++) {
+                if (dimension != skip && masks[dimension] != null) {
+                    result.and(masks[dimension]);
+                }
+            }
+            return result;
+        }
+
+        // Sin filtro en la dimensión, la base de su faceta es el propio resultado
+        private BitSet facetBase(BitSet[] masks, int dimension, BitSet matching) {
+            return masks[dimension] == null ? matching : intersect(masks, dimension);
+        }
+
+        private Map<Long, Long> countModels(BitSet base) {
+            Map<Long, Long> counts = new LinkedHashMap<>();
+            for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                if (modelIds[slot] != 0) {
+                    counts.merge(modelIds[slot], 1L, Long::sum);
+                }
+            }
+            return counts;
+        }
+
+        private static int band(long[] bands, double value) {
+            int band = 0;
+            while (band + 1 < bands.length && value >= bands[band + 1]) {
+                band++;
+            }
+            return band;
+        }
+
+        private static List<CarFacetResult.RangeBucket> rangeBuckets(long[] bands, long[] counts) {
+            List<CarFacetResult.RangeBucket> buckets = new ArrayList<>(bands.length);
+            for (int i = 0; i < bands.length; i++) {
+                Long to = i + 1 < bands.length ? bands[i + 1] : null;
+                String key = to == null ? bands[i] + "+" : bands[i] + "-" + to;
+                buckets.add(new CarFacetResult.RangeBucket(key, bands[i], to, counts[i]));
+            }
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.MyCars.dto.CarFeedEvent;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+
+/**
+ * Feed de cambios de vehículos por Server-Sent Events. Cada cambio confirmado recibe un número de
+ * secuencia y se guarda en un búfer circular para que un cliente que se reconecta con
+ * Last-Event-ID reciba lo que se perdió. Cada suscriptor tiene su propia cola acotada y un hilo
+ * virtual que escribe en su conexión: publicar nunca espera a un cliente lento; si su cola se
+ * llena se le desconecta y, al reconectar, se pone al día desde el búfer.
+ */
+@Service
+public class CarFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarFeedService.class);
+
+    private static final String CHANGE_EVENT = "car";
+    // El cliente no puede ponerse al día desde el búfer: debe volver a pedir GET /cars
+    private static final String RESET_EVENT = "reset";
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object CLOSE = new Object();
+
+    // Columnas que se comparan para decidir qué campos han cambiado
+    private static final Map<String, Function<CarSnapshot, Object>> FIELDS = fields();
+
+    // Las secuencias empiezan de cero en cada arranque; el instante de arranque las distingue
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final int subscriberQueueSize;
+    private final int maxSubscribers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CarFeedEvent[] ring;
+    private long nextSequence = 1;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CarFeedService(
+            @Value("${app.cars.events.buffer-size:1024}") int bufferSize,
+            @Value("${app.cars.events.subscriber-queue:256}") int subscriberQueueSize,
+            @Value("${app.cars.events.max-subscribers:1000}") int maxSubscribers) {
+        this.ring = new CarFeedEvent[bufferSize];
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        CarFeedEvent.Type type = event.before() == null ? CarFeedEvent.Type.CREATED
+                : event.after() == null ? CarFeedEvent.Type.DELETED
+                : CarFeedEvent.Type.UPDATED;
+        Map<String, Object> changes = changes(event.before(), event.after());
+        Long version = event.after() != null ? event.after().version() : null;
+
+        lock.lock();
+        try {
+            long sequence = nextSequence++;
+            CarFeedEvent feedEvent = new CarFeedEvent(epoch + ":" + sequence, type, event.carId(), version, changes, Instant.now());
+            ring[(int) (sequence % ring.length)] = feedEvent;
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(feedEvent)) {
+                    evict(subscriber);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Abre una suscripción. Con {@code lastEventId} se reenvían primero los cambios posteriores
+     * que sigan en el búfer; si ya no están (o el servidor se ha reiniciado) se envía un evento
+     * "reset". Devuelve null si se ha alcanzado el máximo de suscriptores.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        // Sin tiempo propio: se aplica spring.mvc.async.request-timeout y el cliente reconecta
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(subscriberQueueSize));
+
+        List<CarFeedEvent> backlog;
+        lock.lock();
+        try {
+            // Réplica y alta en la misma sección crítica: no se pierde ni se duplica ningún cambio
+            backlog = backlogAfter(lastEventId);
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        Thread.ofVirtual().name("car-feed-subscriber").start(() -> subscriber.run(backlog));
+        return emitter;
+    }
+
+    // Además de mantener viva la conexión, detecta los clientes que se han ido sin cerrarla
+    @Scheduled(fixedDelayString = "${app.cars.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(HEARTBEAT)) {
+                evict(subscriber);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    // Vacía si el cliente no pide reanudar; null si lo que pide ya no está en el búfer
+    private List<CarFeedEvent> backlogAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        int separator = lastEventId.indexOf(':');
+        long lastSequence;
+        try {
+            lastSequence = separator > 0 ? Long.parseLong(lastEventId.substring(separator + 1)) : -1;
+        } catch (NumberFormatException e) {
+            lastSequence = -1;
+        }
+        long oldest = Math.max(1, nextSequence - ring.length);
+        if (lastSequence < 0 || !epoch.equals(lastEventId.substring(0, separator))
+                || lastSequence >= nextSequence || lastSequence + 1 < oldest) {
+            return null;
+        }
+        List<CarFeedEvent> backlog = new ArrayList<>();
+        for (long sequence = lastSequence + 1; sequence < nextSequence; sequence++) {
+            backlog.add(ring[(int) (sequence % ring.length)]);
+        }
+        return backlog;
+    }
+
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evictions.incrementAndGet();
+            log.info("Suscriptor del feed de vehículos desconectado por no consumir a tiempo");
+        }
+        close(subscriber);
+    }
+
+    // No toca el emitter desde aquí: su hilo puede estar bloqueado escribiendo en la conexión
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        subscriber.queue.offer(CLOSE);
+    }
+
+    private static Map<String, Object> changes(CarSnapshot before, CarSnapshot after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (after == null) {
+            return changes;
+        }
+        FIELDS.forEach((name, getter) -> {
+            Object value = getter.apply(after);
+            if (before == null ? value != null : !sameValue(getter.apply(before), value)) {
+                changes.put(name, value);
+            }
+        });
+        return changes;
+    }
+
+    // 1000 y 1000.00 son el mismo precio aunque BigDecimal.equals diga lo contrario
+    private static boolean sameValue(Object before, Object after) {
+        if (before instanceof BigDecimal previous && after instanceof BigDecimal current) {
+            return previous.compareTo(current) == 0;
+        }
+        return Objects.equals(before, after);
+    }
+
+    private static Map<String, Function<CarSnapshot, Object>> fields() {
+        Map<String, Function<CarSnapshot, Object>> fields = new LinkedHashMap<>();
+        fields.put("licensePlate", CarSnapshot::licensePlate);
+        fields.put("modelId", CarSnapshot::modelId);
+        fields.put("status", CarSnapshot::status);
+        fields.put("sellingPrice", CarSnapshot::sellingPrice);
+        fields.put("mileage", CarSnapshot::mileage);
+        fields.put("expeditionYear", CarSnapshot::expeditionYear);
+        fields.put("color", CarSnapshot::color);
+        return fields;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> queue;
+
+        Subscriber(SseEmitter emitter, BlockingQueue<Object> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void run(List<CarFeedEvent> backlog) {
+            try {
+                if (backlog == null) {
+                    emitter.send(SseEmitter.event().name(RESET_EVENT)
+                            .data(Map.of("reason", "Los cambios solicitados ya no están disponibles"), MediaType.APPLICATION_JSON));
+                } else {
+                    for (CarFeedEvent event : backlog) {
+                        send(event);
+                    }
+                }
+                while (true) {
+                    Object item = queue.take();
+                    if (item == CLOSE) {
+                        break;
+                    }
+                    if (item == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        send((CarFeedEvent) item);
+                    }
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // Conexión cerrada por el cliente o petición asíncrona ya terminada
+                log.debug("Suscriptor del feed de vehículos cerrado: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                subscribers.remove(this);
+            }
+        }
+
+        private void send(CarFeedEvent event) throws IOException {
+            emitter.send(SseEmitter.event().id(event.id()).name(CHANGE_EVENT).data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CarImportReport;
+import com.example.MyCars.dto.CarImportResult;
+import com.example.MyCars.dto.CarImportRow;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Importación masiva de vehículos desde un array JSON o NDJSON. Marcas y modelos se
+ * resuelven en memoria y los coches se insertan en lotes JDBC, un bloque por transacción.
+ */
+@Service
+public class CarImportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    public CarImportReport importCars(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        ImportState state = loadState();
+        List<CarImportResult> results = new ArrayList<>();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        // Un array JSON en la raíz se recorre elemento a elemento; NDJSON, valor a valor
+        try (MappingIterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                JsonNode node = rows.nextValue();
+                int rowIndex = index++;
+                try {
+                    chunk.add(new PendingRow(rowIndex, objectMapper.treeToValue(node, CarImportRow.class)));
+                } catch (JsonProcessingException e) {
+                    results.add(CarImportResult.failed(rowIndex, node.path("licensePlate").asText(null),
+                            "Fila inválida: " + e.getOriginalMessage()));
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(importChunk(chunk, state));
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            results.add(CarImportResult.failed(index, null, "JSON mal formado; se detiene la importación: " + e.getOriginalMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, state));
+        }
+
+        if (state.catalogChanged) {
+            catalogService.rebuild();
+        }
+
+        results.sort(Comparator.comparingInt(CarImportResult::index));
+        int created = (int) results.stream().filter(r -> r.status() == CarImportResult.Status.CREATED).count();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new CarImportReport(results.size(), created, results.size() - created, elapsedMillis, results);
+    }
+
+    private List<CarImportResult> importChunk(List<PendingRow> chunk, ImportState state) {
+        List<CarImportResult> results = new ArrayList<>(chunk.size());
+        List<PendingRow> valid = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            String error = validate(pending.row(), state);
+            if (error != null) {
+                results.add(CarImportResult.failed(pending.index(), pending.row().licensePlate(), error));
+            } else {
+                valid.add(pending);
+            }
+        }
+
+        // Matrículas ya existentes en base de datos: una consulta IN por bloque
+        if (!valid.isEmpty()) {
+            Set<String> existing = new HashSet<>(carRepository.findExistingLicensePlates(
+                    valid.stream().map(p -> p.row().licensePlate().trim()).toList()));
+            valid.removeIf(pending -> {
+                if (existing.contains(pending.row().licensePlate().trim())) {
+                    results.add(CarImportResult.failed(pending.index(), pending.row().licensePlate(), "La matrícula ya existe"));
+                    return true;
+                }
+                return false;
+            });
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        try {
+            results.addAll(persist(valid, state));
+        } catch (RuntimeException e) {
+            // Si el lote falla se reintenta fila a fila para aislar las erróneas
+            for (PendingRow pending : valid) {
+                try {
+                    results.addAll(persist(List.of(pending), state));
+                } catch (RuntimeException rowError) {
+                    results.add(CarImportResult.failed(pending.index(), pending.row().licensePlate(),
+                            "No se pudo guardar: " + rootMessage(rowError)));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<CarImportResult> persist(List<PendingRow> rows, ImportState state) {
+        Map<String, Long> createdBrands = new HashMap<>();
+        Map<String, Long> createdModels = new HashMap<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            List<CarImportResult> created = databaseBulkhead.call(() -> transaction.execute(status -> {
+                List<CarModel> cars = new ArrayList<>(rows.size());
+                for (PendingRow pending : rows) {
+                    CarImportRow row = pending.row();
+                    Long modelId = resolveModel(row.brand(), row.model(), state, createdBrands, createdModels);
+
+                    CarModel car = new CarModel();
+                    car.setLicensePlate(row.licensePlate().trim());
+                    car.setModel(entityManager.getReference(ModelModel.class, modelId));
+                    car.setStatus(row.status() == null ? CarStatus.AVAILABLE : CarStatus.valueOf(row.status().trim().toUpperCase(Locale.ROOT)));
+                    car.setColor(row.color());
+                    car.setExpeditionYear(row.expeditionYear());
+                    car.setMileage(row.mileage());
+                    car.setSellingPrice(row.sellingPrice());
+                    car.setDescription(row.description());
+                    car.setCreatedOn(LocalDate.now());
+                    entityManager.persist(car);
+                    cars.add(car);
+                }
+                entityManager.flush();
+                // Los oyentes transaccionales solo los reciben si el lote se confirma
+                cars.forEach(car -> eventPublisher.publishEvent(CarChangedEvent.created(CarSnapshot.of(car))));
+                entityManager.clear();
+
+                List<CarImportResult> results = new ArrayList<>(rows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    results.add(CarImportResult.created(rows.get(i).index(), cars.get(i).getLicensePlate(), cars.get(i).getId()));
+                }
+                return results;
+            }));
+            if (!createdBrands.isEmpty() || !createdModels.isEmpty()) {
+                state.catalogChanged = true;
+            }
+            return created;
+        } catch (RuntimeException e) {
+            // La transacción se deshizo: las marcas y modelos creados en ella no existen
+            createdBrands.keySet().forEach(state.brandIds::remove);
+            createdModels.keySet().forEach(state.modelIds::remove);
+            throw e;
+        }
+    }
+
+    private Long resolveModel(String brandName, String modelName, ImportState state,
+            Map<String, Long> createdBrands, Map<String, Long> createdModels) {
+        String brandKey = fold(brandName);
+        Long brandId = state.brandIds.get(brandKey);
+        if (brandId == null) {
+            BrandModel brand = new BrandModel();
+            brand.setName(brandName.trim());
+            entityManager.persist(brand);
+            brandId = brand.getId();
+            state.brandIds.put(brandKey, brandId);
+            createdBrands.put(brandKey, brandId);
+        }
+
+        String modelKey = brandId + ":" + fold(modelName);
+        Long modelId = state.modelIds.get(modelKey);
+        if (modelId == null) {
+            ModelModel model = new ModelModel();
+            model.setName(modelName.trim());
+            model.setBrand(entityManager.getReference(BrandModel.class, brandId));
+            entityManager.persist(model);
+            modelId = model.getId();
+            state.modelIds.put(modelKey, modelId);
+            createdModels.put(modelKey, modelId);
+        }
+        return modelId;
+    }
+
+    private static String validate(CarImportRow row, ImportState state) {
+        if (row.licensePlate() == null || row.licensePlate().isBlank()) {
+            return "La matrícula es obligatoria";
+        }
+        if (row.brand() == null || row.brand().isBlank() || row.model() == null || row.model().isBlank()) {
+            return "La marca y el modelo son obligatorios";
+        }
+        if (row.status() != null) {
+            try {
+                CarStatus.valueOf(row.status().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return "Estado desconocido: " + row.status();
+            }
+        }
+        if (row.mileage() != null && row.mileage() < 0) {
+            return "El kilometraje no puede ser negativo";
+        }
+        if (row.sellingPrice() != null && row.sellingPrice().signum() < 0) {
+            return "El precio no puede ser negativo";
+        }
+        if (!state.seenPlates.add(row.licensePlate().trim())) {
+            return "Matrícula repetida en la importación";
+        }
+        return null;
+    }
+
+    private ImportState loadState() {
+        ImportState state = new ImportState();
+        for (BrandModel brand : brandRepository.findAllWithModels()) {
+            state.brandIds.put(fold(brand.getName()), brand.getId());
+            if (brand.getModels() != null) {
+                for (ModelModel model : brand.getModels()) {
+                    state.modelIds.put(brand.getId() + ":" + fold(model.getName()), model.getId());
+                }
+            }
+        }
+        return state;
+    }
+
+    private static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private record PendingRow(int index, CarImportRow row) {
+    }
+
+    private static final class ImportState {
+        private final Map<String, Long> brandIds = new HashMap<>();
+        private final Map<String, Long> modelIds = new HashMap<>();
+        private final Set<String> seenPlates = new HashSet<>();
+        private boolean catalogChanged;
+    }
+}
@@ -1,83 +1,387 @@
 package com.example.MyCars.services;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.events.CarPhotosChangedEvent;
 import com.example.MyCars.models.CarModel;
 import com.example.MyCars.models.CarPhotoModel;
 import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.services.PhotoStreamWriter.StagedPhoto;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Service
 public class CarPhotoService {
 
-    @Value("${app.upload.dir}")
-    private String uploadDir;
+    private static final Logger log = LoggerFactory.getLogger(CarPhotoService.class);
+
+    // Bloqueos por URL (en franjas) para que alta y borrado del mismo fichero no se crucen
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${app.photos.max-upload-bytes:10485760}")
+    private long maxUploadBytes;
 
     @Autowired
     private CarPhotoRepository carPhotoRepository;
 
+    @Autowired
+    private PhotoVariantService photoVariantService;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock[] contentLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public CarPhotoService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            contentLocks[i] = new ReentrantLock();
+        }
+    }
+
     public List<CarPhotoModel> getPhotosByCar(CarModel car) {
-        return carPhotoRepository.findByCar(car);
+        return carPhotoRepository.findByCarIdOrderByPositionAscIdAsc(car.getId());
+    }
+
+    public CarPhotoModel getPhotoById(Long id) {
+        return carPhotoRepository.findById(id).orElse(null);
     }
 
     public CarPhotoModel getMainPhoto(CarModel car) {
         return carPhotoRepository.findByCarAndIsMainTrue(car);
     }
 
+    // Foto principal de varios vehículos con una sola consulta, indexada por id de vehículo
+    public Map<Long, CarPhotoModel> getMainPhotos(Collection<Long> carIds) {
+        Map<Long, CarPhotoModel> byCar = new LinkedHashMap<>();
+        for (CarPhotoModel photo : carPhotoRepository.findMainByCarIdIn(carIds)) {
+            byCar.putIfAbsent(photo.getCar().getId(), photo);
+        }
+        return byCar;
+    }
+
     public CarPhotoModel savePhoto(MultipartFile file, CarModel car, String caption, Boolean isMain) throws IOException {
-        // Crear directorio si no existe
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream())) {
+            return savePhoto(in, car, caption, isMain);
+        }
+    }
+
+    public CarPhotoModel savePhoto(ReadableByteChannel in, CarModel car, String caption, Boolean isMain) throws IOException {
+        // Una sola escritura a disco: tamaño, SHA-256 y tipo de imagen se calculan en la misma pasada
+        StagedPhoto staged = PhotoStreamWriter.write(in, photoStorage.stagingDirectory(), maxUploadBytes);
+        try {
+            String fileName = staged.fileName();
+            ReentrantLock lock = lockFor(PhotoFileNames.urlOf(fileName));
+            lock.lock();
+            try {
+                // Contenido direccionado por hash: si ya existe, se reutiliza el mismo fichero
+                boolean created = !photoStorage.exists(fileName) && photoStorage.store(fileName, staged.tempFile());
+
+                // Crear y guardar registro en base de datos
+                CarPhotoModel photo = new CarPhotoModel();
+                photo.setCar(car);
+                photo.setUrl(PhotoFileNames.urlOf(fileName));
+                photo.setContentHash(staged.contentHash());
+                photo.setCaption(caption);
+                photo.setIsMain(isMain);
+                photo.setVariantsReady(false);
+                photo.setFileMissing(false);
+
+                CarPhotoModel saved;
+                try {
+                    saved = insertPhotos(car, List.of(photo), Boolean.TRUE.equals(isMain)).get(0);
+                } catch (RuntimeException e) {
+                    if (created) {
+                        photoStorage.delete(fileName);
+                    }
+                    throw e;
+                }
+
+                recordUpload(staged, created);
+                // Las miniaturas se generan en segundo plano; la petición no espera por ellas
+                photoVariantService.schedule(saved);
+                return saved;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(staged.tempFile());
         }
+    }
+
+    /**
+     * Sube varias fotos a la vez: los ficheros se escriben en paralelo en hilos virtuales y
+     * las filas se insertan en una única transacción por lotes. La foto principal se
+     * resuelve una sola vez al final.
+     */
+    public List<CarPhotoModel> savePhotos(List<MultipartFile> files, CarModel car, List<String> captions, Integer mainIndex)
+            throws IOException {
+        Path stagingPath = photoStorage.stagingDirectory();
+        List<StagedPhoto> staged = new ArrayList<>(files.size());
+        try {
+            List<Future<StagedPhoto>> writes = new ArrayList<>(files.size());
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (MultipartFile file : files) {
+                    writes.add(executor.submit(() -> {
+                        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream())) {
+                            return PhotoStreamWriter.write(in, stagingPath, maxUploadBytes);
+                        }
+                    }));
+                }
+            }
+            // Se recogen todos los resultados antes de fallar para que el finally limpie cada temporal
+            Exception failure = null;
+            for (Future<StagedPhoto> write : writes) {
+                try {
+                    staged.add(write.get());
+                } catch (ExecutionException e) {
+                    if (failure == null || e.getCause() instanceof InvalidPhotoException) {
+                        failure = (Exception) e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Subida interrumpida", e);
+                }
+            }
+            if (failure instanceof InvalidPhotoException invalid) {
+                throw invalid;
+            }
+            if (failure != null) {
+                throw failure instanceof IOException io ? io : new IOException(failure);
+            }
+
+            // Bloqueos de todas las URLs afectadas, siempre en el mismo orden para evitar interbloqueos
+            TreeSet<Integer> stripes = new TreeSet<>();
+            staged.forEach(photo -> stripes.add(stripeFor(PhotoFileNames.urlOf(photo.fileName()))));
+            stripes.forEach(stripe -> contentLocks[stripe].lock());
+            List<CarPhotoModel> saved;
+            List<String> created = new ArrayList<>();
+            try {
+                List<CarPhotoModel> photos = new ArrayList<>(staged.size());
+                for (int i = 0; i < staged.size(); i++) {
+                    StagedPhoto photo = staged.get(i);
+                    if (!photoStorage.exists(photo.fileName()) && photoStorage.store(photo.fileName(), photo.tempFile())) {
+                        created.add(photo.fileName());
+                    }
+
+                    CarPhotoModel model = new CarPhotoModel();
+                    model.setCar(car);
+                    model.setUrl(PhotoFileNames.urlOf(photo.fileName()));
+                    model.setContentHash(photo.contentHash());
+                    model.setCaption(captions != null && i < captions.size() ? captions.get(i) : null);
+                    model.setIsMain(mainIndex != null && mainIndex == i);
+                    model.setVariantsReady(false);
+                    model.setFileMissing(false);
+                    photos.add(model);
+                }
 
-        // Generar nombre único para el archivo
-        String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-        Path filePath = uploadPath.resolve(fileName);
-        
-        // Guardar archivo
-        Files.copy(file.getInputStream(), filePath);
-
-        // Crear y guardar registro en base de datos
-        CarPhotoModel photo = new CarPhotoModel();
-        photo.setCar(car);
-        photo.setUrl("/uploads/cars/" + fileName);
-        photo.setCaption(caption);
-        photo.setIsMain(isMain);
-
-        // Si esta foto es principal, desmarcar las otras
-        if (isMain) {
-            List<CarPhotoModel> existingPhotos = getPhotosByCar(car);
-            existingPhotos.forEach(p -> {
-                if (!p.getId().equals(photo.getId())) {
-                    p.setIsMain(false);
-                    carPhotoRepository.save(p);
+                saved = insertPhotos(car, photos, mainIndex != null && mainIndex >= 0 && mainIndex < photos.size());
+            } catch (RuntimeException | IOException e) {
+                // Los ficheros nuevos no los referencia ninguna fila si la transacción no llegó a confirmarse
+                for (String fileName : created) {
+                    photoStorage.delete(fileName);
                 }
-            });
+                throw e;
+            } finally {
+                stripes.descendingSet().forEach(stripe -> contentLocks[stripe].unlock());
+            }
+
+            for (StagedPhoto photo : staged) {
+                recordUpload(photo, created.contains(photo.fileName()));
+            }
+            saved.forEach(photoVariantService::schedule);
+            return saved;
+        } finally {
+            for (StagedPhoto photo : staged) {
+                Files.deleteIfExists(photo.tempFile());
+            }
         }
+    }
 
-        return carPhotoRepository.save(photo);
+    /**
+     * Marca una foto como principal con dos UPDATE en bloque dentro de una transacción:
+     * primero se desmarca la principal actual y después se marca la nueva. El índice único
+     * parcial sobre (car_id) WHERE is_main (migración V8) impide que dos peticiones concurrentes
+     * dejen dos fotos principales; la que pierde recibe un DataIntegrityViolationException.
+     */
+    @Transactional
+    public CarPhotoModel setMainPhoto(Long carId, Long photoId) {
+        carPhotoRepository.clearMainPhotoExcept(carId, photoId);
+        if (carPhotoRepository.markMain(carId, photoId) == 0) {
+            // La foto no existe o es de otro vehículo: se deshace el desmarcado
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return null;
+        }
+        eventPublisher.publishEvent(new CarPhotosChangedEvent(carId));
+        return carPhotoRepository.findById(photoId).orElse(null);
+    }
+
+    /**
+     * Reordena las fotos de un vehículo con un único UPDATE. La lista debe contener
+     * exactamente las fotos del vehículo; si no, devuelve null y no cambia nada.
+     */
+    @Transactional
+    public List<CarPhotoModel> reorderPhotos(Long carId, List<Long> photoIds) {
+        Set<Long> requested = new HashSet<>(photoIds);
+        if (requested.size() != photoIds.size()
+                || !requested.equals(new HashSet<>(carPhotoRepository.findIdsByCarId(carId)))) {
+            return null;
+        }
+        carPhotoRepository.updatePositions(carId, photoIds);
+        eventPublisher.publishEvent(new CarPhotosChangedEvent(carId));
+        return carPhotoRepository.findByCarIdOrderByPositionAscIdAsc(carId);
     }
 
     public void deletePhoto(Long id) throws IOException {
         CarPhotoModel photo = carPhotoRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Foto no encontrada"));
 
-        // Eliminar archivo físico
-        String fileName = photo.getUrl().substring(photo.getUrl().lastIndexOf("/") + 1);
-        Path filePath = Paths.get(uploadDir).resolve(fileName);
-        Files.deleteIfExists(filePath);
+        ReentrantLock lock = lockFor(photo.getUrl());
+        lock.lock();
+        try {
+            // Eliminar registro de base de datos
+            carPhotoRepository.deleteById(id);
+            meterRegistry.counter("mycars.photos.deleted").increment();
+            if (photo.getCar() != null) {
+                eventPublisher.publishEvent(new CarPhotosChangedEvent(photo.getCar().getId()));
+            }
+
+            // El fichero solo se borra cuando ya no lo referencia ninguna foto
+            if (carPhotoRepository.countByUrl(photo.getUrl()) == 0) {
+                deleteFiles(photo.getUrl());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ficheros de fotos ya borradas de la base de datos; los que otra foto sigue usando se conservan
+    public void deleteUnreferencedFiles(Collection<String> urls) {
+        for (String url : new LinkedHashSet<>(urls)) {
+            ReentrantLock lock = lockFor(url);
+            lock.lock();
+            try {
+                if (carPhotoRepository.countByUrl(url) == 0) {
+                    deleteFiles(url);
+                }
+            } catch (IOException e) {
+                // Lo que quede lo retira la reconciliación periódica de subidas
+                log.warn("No se pudieron borrar los ficheros de {}: {}", url, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta {@code work} con todos los bloqueos de contenido tomados, en el mismo orden que
+     * las subidas: mientras dura, ninguna subida está entre comprobar su fichero en disco y
+     * confirmar su fila. La reconciliación lo usa para retirar huérfanos sin carreras.
+     */
+    void withAllContentLocks(Runnable work) {
+        for (ReentrantLock lock : contentLocks) {
+            lock.lock();
+        }
+        try {
+            work.run();
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                contentLocks[i].unlock();
+            }
+        }
+    }
+
+    // Ejecuta {@code work} con el bloqueo de contenido de una sola URL, el mismo que toman su subida y su borrado
+    void withContentLock(String url, Runnable work) {
+        ReentrantLock lock = lockFor(url);
+        lock.lock();
+        try {
+            work.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deleteFiles(String url) throws IOException {
+        // Eliminar archivo físico y sus variantes
+        photoStorage.delete(PhotoFileNames.fileNameOf(url));
+        photoVariantService.deleteVariants(url);
+        meterRegistry.counter("mycars.photos.files.deleted").increment();
+    }
+
+    // Fotos subidas según se guardó un fichero nuevo o se reutilizó uno con el mismo contenido
+    private void recordUpload(StagedPhoto photo, boolean created) {
+        meterRegistry.counter("mycars.photos.uploaded", "result", created ? "stored" : "deduplicated").increment();
+        DistributionSummary.builder("mycars.photos.uploaded.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(photo.size());
+    }
+
+    // Inserta las filas al final del orden actual; si una de ellas es principal, antes se desmarca la anterior
+    private List<CarPhotoModel> insertPhotos(CarModel car, List<CarPhotoModel> photos, boolean replacesMain) {
+        return databaseBulkhead.call(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            if (replacesMain) {
+                carPhotoRepository.clearMainPhoto(car);
+            }
+            int position = carPhotoRepository.findNextPosition(car.getId());
+            for (CarPhotoModel photo : photos) {
+                photo.setPosition(position++);
+            }
+            List<CarPhotoModel> saved = carPhotoRepository.saveAll(photos);
+            eventPublisher.publishEvent(new CarPhotosChangedEvent(car.getId()));
+            return saved;
+        }));
+    }
+
+    private ReentrantLock lockFor(String url) {
+        return contentLocks[stripeFor(url)];
+    }
 
-        // Eliminar registro de base de datos
-        carPhotoRepository.deleteById(id);
+    private static int stripeFor(String url) {
+        return Math.floorMod(url.hashCode(), LOCK_STRIPES);
     }
-} 
\ No newline at end of file
+}
@@ -1,39 +1,223 @@
 package com.example.MyCars.services;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CarPage;
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSearchCursor;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
 import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.CarPhotoRepository;
 import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class CarService {
 
+    // Campos que admite PATCH /cars/{id}; el resto (id, fotos, fechas) no se modifica así
+    private static final Map<String, MergePatch.Field> PATCH_FIELDS = Map.of(
+            "licensePlate", new MergePatch.Field(String.class, false),
+            "model", new MergePatch.Field(ModelModel.class, false),
+            "status", new MergePatch.Field(CarStatus.class, false),
+            "color", new MergePatch.Field(String.class, false),
+            "expeditionYear", new MergePatch.Field(Integer.class, false),
+            "mileage", new MergePatch.Field(Integer.class, false),
+            "sellingPrice", new MergePatch.Field(BigDecimal.class, false),
+            "description", new MergePatch.Field(String.class, true));
+
     @Autowired
     private CarRepository carRepository;
 
-    public ArrayList<CarModel> getAllCars() {
-        return (ArrayList<CarModel>) carRepository.findAllWithDetails();
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    @Autowired
+    private CarPhotoService carPhotoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<CarSummary> getCarSummaries() {
+        return carRepository.findAllSummaries();
+    }
+
+    public CarPage<CarSummary> searchCars(CarSearchCriteria criteria, String cursor, int limit) {
+        CarSearchCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = CarSearchCursor.decode(cursor);
+            if (after.sort() != criteria.sort() || after.descending() != criteria.descending()) {
+                throw new IllegalArgumentException("El cursor no corresponde a la ordenación solicitada");
+            }
+        }
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<CarSummary> rows = carRepository.search(criteria, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new CarPage<>(rows, null);
+        }
+        List<CarSummary> items = rows.subList(0, limit);
+        CarSummary last = items.get(limit - 1);
+        String next = new CarSearchCursor(criteria.sort(), criteria.descending(), criteria.sort().valueOf(last), last.id()).encode();
+        return new CarPage<>(items, next);
     }
 
     public CarModel getCarById(Long id) {
         return carRepository.findById(id).orElse(null);
     }
 
+    // Una sola consulta IN; los ids que no existen no aparecen en el resultado
+    public Map<Long, CarModel> getCarsByIds(Collection<Long> ids) {
+        Map<Long, CarModel> byId = new HashMap<>();
+        carRepository.findAllWithDetailsByIdIn(ids).forEach(car -> byId.put(car.getId(), car));
+        Map<Long, CarModel> ordered = new LinkedHashMap<>();
+        ids.forEach(id -> {
+            CarModel car = byId.get(id);
+            if (car != null) {
+                ordered.put(id, car);
+            }
+        });
+        return ordered;
+    }
+
     public CarModel createCar(CarModel car) {
         car.setCreatedOn(LocalDate.now());
-        return carRepository.save(car);
+        resolveModel(car);
+        CarModel saved = carRepository.save(car);
+        eventPublisher.publishEvent(CarChangedEvent.created(CarSnapshot.of(saved)));
+        return saved;
     }
 
+    /**
+     * Sustituye los datos de un vehículo. Sin versión en el cuerpo se actualiza sobre la actual;
+     * con versión, el cambio falla si la fila ya no está en ella. La misma lectura sirve de imagen
+     * previa para los eventos y de entidad gestionada sobre la que save copia el cuerpo, así que
+     * el vehículo se consulta una sola vez. Devuelve null si el vehículo no existe.
+     */
+    @Transactional
     public CarModel updateCar(CarModel car) {
-        return carRepository.save(car);
+        CarModel current = carRepository.findById(car.getId()).orElse(null);
+        if (current == null) {
+            return null;
+        }
+        CarSnapshot before = CarSnapshot.of(current);
+        if (car.getVersion() == null) {
+            car.setVersion(before.version());
+        }
+        resolveModel(car);
+        CarModel saved = carRepository.save(car);
+        // El UPDATE se lanza ya para que el evento lleve la versión nueva
+        entityManager.flush();
+        eventPublisher.publishEvent(CarChangedEvent.updated(before, CarSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Aplica un JSON Merge Patch con un UPDATE que solo escribe las columnas presentes en el
+     * cuerpo. El UPDATE exige la versión enviada por el cliente o, si no envía ninguna, la que
+     * se acaba de leer para la imagen previa de los eventos; si la fila ya no está en esa
+     * versión se lanza un conflicto en vez de pisar el cambio ajeno. Devuelve null si el
+     * vehículo no existe y lanza IllegalArgumentException si el cuerpo no es válido.
+     */
+    @Transactional
+    public CarModel patchCar(Long id, Map<String, Object> body) {
+        MergePatch patch = MergePatch.parse(body, PATCH_FIELDS, objectMapper);
+        if (patch.values().get("model") instanceof ModelModel model) {
+            patch.values().put("model", findModel(model));
+        }
+        CarModel current = carRepository.findById(id).orElse(null);
+        if (current == null || patch.values().isEmpty()) {
+            return current;
+        }
+        CarSnapshot before = CarSnapshot.of(current);
+        Long expectedVersion = patch.expectedVersion() != null ? patch.expectedVersion() : before.version();
+        if (carRepository.patch(id, expectedVersion, patch.values()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(CarModel.class, id);
+        }
+        // El UPDATE en bloque no pasa por el contexto de persistencia: se lee la fila resultante
+        CarModel saved = carRepository.findById(id).orElseThrow();
+        eventPublisher.publishEvent(CarChangedEvent.updated(before, CarSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Borra un vehículo y sus fotos. La fila se bloquea dentro de la transacción del borrado: la
+     * imagen previa del evento es la que se borra de verdad (no la de antes de un PATCH que se
+     * colara) y, de dos borrados simultáneos, solo el que la encuentra publica el evento.
+     * Devuelve false si el vehículo no existía.
+     */
+    public boolean deleteCar(Long id) {
+        // Las fotos se borran con el vehículo; sus ficheros, solo después de confirmar
+        List<String> photoUrls = databaseBulkhead.call(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            CarModel car = carRepository.findByIdForUpdate(id).orElse(null);
+            if (car == null) {
+                return null;
+            }
+            CarSnapshot before = CarSnapshot.of(car);
+            List<String> urls = carPhotoRepository.findUrlsByCarId(id);
+            carPhotoRepository.deleteByCarId(id);
+            carRepository.delete(car);
+            // Dentro de la transacción: los oyentes lo reciben solo si el borrado se confirma
+            eventPublisher.publishEvent(CarChangedEvent.deleted(before));
+            return urls;
+        }));
+        if (photoUrls == null) {
+            return false;
+        }
+        carPhotoService.deleteUnreferencedFiles(photoUrls);
+        return true;
+    }
+
+    private ModelModel findModel(ModelModel reference) {
+        if (reference.getId() == null) {
+            throw new IllegalArgumentException("El modelo debe indicar su id");
+        }
+        return modelRepository.findById(reference.getId())
+                .orElseThrow(() -> new IllegalArgumentException("El modelo " + reference.getId() + " no existe"));
     }
 
-    public void deleteCar(Long id) {
-        carRepository.deleteById(id);
+    // El cuerpo de la petición trae el modelo solo por id y sin versión: se sustituye por el gestionado
+    private void resolveModel(CarModel car) {
+        if (car.getModel() != null && car.getModel().getId() != null) {
+            modelRepository.findById(car.getModel().getId()).ifPresent(car::setModel);
+        }
     }
     
     
@@ -0,0 +1,737 @@
+package com.example.MyCars.services;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CarIdChecksum;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.dto.CarTextSearchResult;
+import com.example.MyCars.dto.CarVersion;
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+import com.example.MyCars.events.CatalogRebuiltEvent;
+import com.example.MyCars.repositories.CarRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Búsqueda de texto sobre descripción, color, modelo y marca con un índice invertido en memoria
+ * y puntuación BM25F (cada campo con su peso y su propia normalización por longitud). Se mantiene
+ * con los eventos de cambio de vehículos y del catálogo, y se guarda periódicamente en disco con
+ * la versión de cada vehículo: al arrancar se carga el fichero y solo se reindexan los vehículos
+ * creados, modificados o borrados desde que se guardó (también los que haya cambiado otro nodo o
+ * mientras este estaba parado). La misma comprobación se repite periódicamente con el índice en
+ * uso; si no hay fichero se indexa toda la tabla.
+ */
+@Service
+public class CarTextSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarTextSearchService.class);
+
+    // Campos en el orden en que se indexan
+    private static final String[] FIELD_NAMES = {"description", "color", "model", "brand"};
+    private static final int FIELDS = FIELD_NAMES.length;
+    // Una coincidencia en la marca o el modelo pesa más que una palabra suelta de la descripción
+    private static final double[] FIELD_WEIGHTS = {1.0, 2.0, 3.0, 3.0};
+
+    // Parámetros habituales de BM25: saturación de la frecuencia y peso de la longitud del campo
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int FRAGMENT_LENGTH = 200;
+    private static final int FRAGMENT_LEAD = 40;
+
+    private static final int FILE_MAGIC = 0x4D435458;
+    private static final int FILE_FORMAT = 2;
+
+    // Vehículos desfasados que se releen por consulta al poner el índice al día
+    private static final int RECONCILE_BATCH = 500;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Value("${app.search.index-file}")
+    private String indexFile;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private TextIndex index = new TextIndex(Map.of());
+
+    // Cambios recibidos mientras se carga o reconstruye; se vuelven a aplicar sobre el índice nuevo
+    private List<CarChangedEvent> pendingDuringRebuild;
+
+    // Cambios aplicados desde la última vez que se guardó el índice en disco
+    private long unsavedChanges;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!replace(this::readFromDisk)) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        replace(() -> {
+            TextIndex rebuilt = new TextIndex(modelNames(catalogService.getSnapshot()));
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            databaseBulkhead.call(() -> readOnly.execute(status -> {
+                try (Stream<CarSnapshot> cars = carRepository.streamSnapshotsWithDescription()) {
+                    cars.forEach(rebuilt::upsert);
+                }
+                return null;
+            }));
+            // Todo el índice es nuevo: se guarda en el siguiente punto de control
+            rebuilt.unsaved = 1;
+            return rebuilt;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${app.search.checkpoint-interval-ms:60000}", fixedDelayString = "${app.search.checkpoint-interval-ms:60000}")
+    @PreDestroy
+    public void checkpoint() {
+        long saving;
+        TextIndex saved;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        // Se serializa en memoria con el bloqueo de lectura; el disco se escribe ya sin bloquear a nadie
+        lock.readLock().lock();
+        try {
+            if (unsavedChanges == 0) {
+                return;
+            }
+            saving = unsavedChanges;
+            saved = index;
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(buffer))) {
+                index.writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path target = Path.of(indexFile);
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(temp, buffer.toByteArray());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar el índice de texto en {}", target, e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Si entretanto se ha sustituido el índice, el nuevo sigue pendiente de guardar
+            if (index == saved) {
+                unsavedChanges -= saving;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Recuento, suma de ids y suma de versiones: si no coinciden con la tabla se ponen al día los vehículos distintos
+    @Scheduled(initialDelayString = "${app.search.check-interval-ms:300000}", fixedDelayString = "${app.search.check-interval-ms:300000}")
+    public void verify() {
+        CarIdChecksum database = carRepository.findIdChecksum();
+        CarIdChecksum local;
+        lock.readLock().lock();
+        try {
+            local = index.checksum();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!database.equals(local)) {
+            log.warn("Índice de texto desincronizado ({} en memoria, {} en base de datos); se pone al día", local, database);
+            replace(() -> reconcile(copyOfIndex()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            index.apply(event);
+            unsavedChanges++;
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogRebuilt(CatalogRebuiltEvent event) {
+        lock.writeLock().lock();
+        try {
+            unsavedChanges += index.applyCatalog(event.snapshot());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CarTextSearchResult search(String query, int offset, int limit) {
+        List<String> terms = TextAnalyzer.terms(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return new CarTextSearchResult(0, List.of());
+        }
+
+        Ranking ranking;
+        lock.readLock().lock();
+        try {
+            ranking = index.rank(terms, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ranking.page().isEmpty()) {
+            return new CarTextSearchResult(ranking.total(), List.of());
+        }
+
+        // Solo se consultan las filas de la página, por clave primaria
+        List<Long> ids = ranking.page().stream().map(Match::carId).toList();
+        Map<Long, CarSummary> summaries = carRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(CarSummary::id, Function.identity(), (first, second) -> first));
+
+        Set<String> matched = new HashSet<>(terms);
+        List<CarTextSearchResult.Hit> hits = new ArrayList<>();
+        for (Match match : ranking.page()) {
+            CarSummary car = summaries.get(match.carId());
+            // Borrado entre la búsqueda y la consulta de los resúmenes
+            if (car == null) {
+                continue;
+            }
+            List<String> fields = new ArrayList<>();
+            for (int field = 0; field < FIELDS; field++) {
+                if ((match.fields() & (1 << field)) != 0) {
+                    fields.add(FIELD_NAMES[field]);
+                }
+            }
+            hits.add(new CarTextSearchResult.Hit(car, match.score(), fields, highlight(match.description(), matched)));
+        }
+        return new CarTextSearchResult(ranking.total(), hits);
+    }
+
+    // Sustituye el índice por el que devuelve el cargador (nulo si no hay nada que cargar)
+    private boolean replace(Supplier<TextIndex> loader) {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TextIndex loaded = null;
+            try {
+                loaded = loader.get();
+            } finally {
+                CatalogSnapshot catalog = loaded != null ? catalogService.getSnapshot() : null;
+                lock.writeLock().lock();
+                try {
+                    if (loaded != null) {
+                        // Upsert y borrado son idempotentes: repetir un cambio ya incluido no lo duplica
+                        pendingDuringRebuild.forEach(loaded::apply);
+                        long changed = loaded.unsaved + pendingDuringRebuild.size() + loaded.applyCatalog(catalog);
+                        index = loaded;
+                        unsavedChanges = changed;
+                    }
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            return loaded != null;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private TextIndex readFromDisk() {
+        Path source = Path.of(indexFile);
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+        TextIndex saved;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(source))))) {
+            saved = TextIndex.readFrom(in);
+        } catch (IOException e) {
+            log.warn("No se pudo leer el índice de texto de {}; se reconstruye", source, e);
+            return null;
+        }
+        if (saved == null) {
+            log.info("El índice de texto de {} es de otra versión; se reconstruye", source);
+            return null;
+        }
+        CarIdChecksum database = carRepository.findIdChecksum();
+        if (!database.equals(saved.checksum())) {
+            log.info("El índice de texto de {} está desfasado ({} guardado, {} en base de datos); se pone al día",
+                    source, saved.checksum(), database);
+            return reconcile(saved);
+        }
+        return saved;
+    }
+
+    // Copia del índice en uso para ponerla al día sin bloquear las búsquedas; conserva los cambios sin guardar
+    private TextIndex copyOfIndex() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long unsaved;
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            index.writeTo(out);
+            unsaved = unsavedChanges;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            TextIndex copy = TextIndex.readFrom(in);
+            copy.unsaved = unsaved;
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Pone al día un índice con la tabla comparando versiones: quita los vehículos borrados y
+     * reindexa los nuevos y los que tienen otra versión, leyendo de la base de datos solo esas
+     * filas. Los ids no se reutilizan, así que un id que ya no está en la tabla no vuelve.
+     */
+    private TextIndex reconcile(TextIndex stale) {
+        Set<Long> deleted = new HashSet<>(stale.docs.keySet());
+        List<Long> changed = new ArrayList<>();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        databaseBulkhead.call(() -> readOnly.execute(status -> {
+            try (Stream<CarVersion> versions = carRepository.streamVersions()) {
+                versions.forEach(car -> {
+                    deleted.remove(car.id());
+                    if (!stale.hasVersion(car.id(), car.version())) {
+                        changed.add(car.id());
+                    }
+                });
+            }
+            return null;
+        }));
+        deleted.forEach(stale::remove);
+        for (int from = 0; from < changed.size(); from += RECONCILE_BATCH) {
+            List<Long> batch = changed.subList(from, Math.min(changed.size(), from + RECONCILE_BATCH));
+            carRepository.findSnapshotsWithDescriptionByIdIn(batch).forEach(stale::upsert);
+        }
+        log.info("Índice de texto al día: {} vehículos reindexados y {} quitados", changed.size(), deleted.size());
+        stale.unsaved += changed.size() + deleted.size();
+        return stale;
+    }
+
+    private static Map<Long, List<String>> modelNames(CatalogSnapshot catalog) {
+        Map<Long, List<String>> names = new HashMap<>();
+        for (CatalogSnapshot.Brand brand : catalog.brands()) {
+            for (CatalogSnapshot.Model model : brand.models()) {
+                names.put(model.id(), Arrays.asList(brand.name(), model.name()));
+            }
+        }
+        return names;
+    }
+
+    // Fragmento de la descripción alrededor de la primera coincidencia, escapado como HTML
+    static String highlight(String text, Set<String> terms) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<TextAnalyzer.Token> matches = TextAnalyzer.tokenize(text).stream()
+                .filter(token -> terms.contains(token.term()))
+                .toList();
+
+        int start = 0;
+        if (!matches.isEmpty()) {
+            int first = matches.get(0).start();
+            start = Math.max(0, first - FRAGMENT_LEAD);
+            // Sin cortar palabras por delante
+            while (start > 0 && start < first && !Character.isWhitespace(text.charAt(start - 1))) {
+                start++;
+            }
+        }
+        int end = Math.min(text.length(), start + FRAGMENT_LENGTH);
+        int wordEnd = end;
+        while (wordEnd < text.length() && wordEnd > start && !Character.isWhitespace(text.charAt(wordEnd))) {
+            wordEnd--;
+        }
+        if (wordEnd > start) {
+            end = wordEnd;
+        }
+
+        StringBuilder fragment = new StringBuilder();
+        if (start > 0) {
+            fragment.append('…');
+        }
+        int cursor = start;
+        for (TextAnalyzer.Token match : matches) {
+            if (match.end() > end) {
+                break;
+            }
+            if (match.start() < cursor) {
+                continue;
+            }
+            fragment.append(escape(text.substring(cursor, match.start())))
+                    .append("<em>").append(escape(text.substring(match.start(), match.end()))).append("</em>");
+            cursor = match.end();
+        }
+        fragment.append(escape(text.substring(cursor, end)));
+        if (end < text.length()) {
+            fragment.append('…');
+        }
+        return fragment.toString();
+    }
+
+    // Solo los caracteres especiales de HTML; las tildes se dejan tal cual
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, StandardCharsets.UTF_8.name());
+    }
+
+    private record Match(Long carId, double score, int fields, String description) {
+    }
+
+    private record Ranking(long total, List<Match> page) {
+    }
+
+    /**
+     * Índice invertido: para cada término, los vehículos que lo contienen y su frecuencia en cada
+     * campo. Marca y modelo se indexan por vehículo con los nombres del catálogo; si el catálogo
+     * cambia se reindexan los vehículos de los modelos afectados. No es seguro entre hilos.
+     */
+    private static final class TextIndex {
+
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+        private final long[] lengthSums = new long[FIELDS];
+        private Map<Long, List<String>> modelNames;
+        private long idSum;
+        private long versionSum;
+        // Cambios que aún no están en disco cuando se instala este índice
+        private long unsaved;
+
+        TextIndex(Map<Long, List<String>> modelNames) {
+            this.modelNames = modelNames;
+        }
+
+        void apply(CarChangedEvent event) {
+            if (event.after() != null) {
+                upsert(event.after());
+            } else {
+                remove(event.carId());
+            }
+        }
+
+        void upsert(CarSnapshot car) {
+            add(car.id(), car.modelId(), car.color(), car.description(), versionOf(car.version()));
+        }
+
+        boolean hasVersion(Long id, Long version) {
+            Doc doc = docs.get(id);
+            return doc != null && doc.version() == versionOf(version);
+        }
+
+        private void add(Long id, Long modelId, String color, String description, long version) {
+            remove(id);
+            List<String> names = modelId != null ? modelNames.get(modelId) : null;
+            List<List<String>> fields = List.of(
+                    TextAnalyzer.terms(description),
+                    TextAnalyzer.terms(color),
+                    names != null ? TextAnalyzer.terms(names.get(1)) : List.of(),
+                    names != null ? TextAnalyzer.terms(names.get(0)) : List.of());
+
+            Map<String, int[]> frequencies = new HashMap<>();
+            int[] lengths = new int[FIELDS];
+            for (int field = 0; field < FIELDS; field++) {
+                for (String term : fields.get(field)) {
+                    frequencies.computeIfAbsent(term, key -> new int[FIELDS])[field]++;
+                }
+                lengths[field] = fields.get(field).size();
+                lengthSums[field] += lengths[field];
+            }
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, frequency));
+            docs.put(id, new Doc(modelId, color, description, version, lengths, frequencies.keySet().toArray(String[]::new)));
+            idSum += id;
+            versionSum += version;
+        }
+
+        void remove(Long id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.terms()) {
+                Map<Long, int[]> matches = postings.get(term);
+                matches.remove(id);
+                if (matches.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            for (int field = 0; field < FIELDS; field++) {
+                lengthSums[field] -= doc.lengths()[field];
+            }
+            idSum -= id;
+            versionSum -= doc.version();
+        }
+
+        // Devuelve cuántos vehículos se han reindexado
+        int applyCatalog(CatalogSnapshot catalog) {
+            Map<Long, List<String>> current = modelNames(catalog);
+            Set<Long> changed = new HashSet<>();
+            current.forEach((modelId, names) -> {
+                if (!names.equals(modelNames.get(modelId))) {
+                    changed.add(modelId);
+                }
+            });
+            modelNames.keySet().stream().filter(modelId -> !current.containsKey(modelId)).forEach(changed::add);
+            modelNames = current;
+            if (changed.isEmpty()) {
+                return 0;
+            }
+            List<Long> affected = docs.entrySet().stream()
+                    .filter(entry -> changed.contains(entry.getValue().modelId()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            for (Long id : affected) {
+                Doc doc = docs.get(id);
+                add(id, doc.modelId(), doc.color(), doc.description(), doc.version());
+            }
+            return affected.size();
+        }
+
+        CarIdChecksum checksum() {
+            return new CarIdChecksum(docs.size(), idSum, versionSum);
+        }
+
+        Ranking rank(List<String> terms, int offset, int limit) {
+            int count = docs.size();
+            if (count == 0) {
+                return new Ranking(0, List.of());
+            }
+            double[] averages = new double[FIELDS];
+            for (int field = 0; field < FIELDS; field++) {
+                averages[field] = Math.max(1.0, (double) lengthSums[field] / count);
+            }
+
+            Map<Long, Score> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, int[]> matches = postings.get(term);
+                if (matches == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (count - matches.size() + 0.5) / (matches.size() + 0.5));
+                matches.forEach((id, frequency) -> {
+                    int[] lengths = docs.get(id).lengths();
+                    double weighted = 0;
+                    int fields = 0;
+                    for (int field = 0; field < FIELDS; field++) {
+                        if (frequency[field] > 0) {
+                            weighted += FIELD_WEIGHTS[field] * frequency[field] / (1 - B + B * lengths[field] / averages[field]);
+                            fields |= 1 << field;
+                        }
+                    }
+                    scores.computeIfAbsent(id, key -> new Score()).add(idf * weighted * (K1 + 1) / (K1 + weighted), fields);
+                });
+            }
+
+            List<Match> page = scores.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<Long, Score> entry) -> entry.getValue().value).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(entry -> new Match(entry.getKey(), entry.getValue().value, entry.getValue().fields,
+                            docs.get(entry.getKey()).description()))
+                    .toList();
+            return new Ranking(scores.size(), page);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_FORMAT);
+            out.writeInt(TextAnalyzer.VERSION);
+
+            out.writeInt(modelNames.size());
+            for (Map.Entry<Long, List<String>> entry : modelNames.entrySet()) {
+                out.writeLong(entry.getKey());
+                writeString(out, entry.getValue().get(0));
+                writeString(out, entry.getValue().get(1));
+            }
+
+            out.writeInt(docs.size());
+            for (Map.Entry<Long, Doc> entry : docs.entrySet()) {
+                Doc doc = entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeLong(doc.modelId() != null ? doc.modelId() : -1);
+                writeString(out, doc.color());
+                writeString(out, doc.description());
+                out.writeLong(doc.version());
+                for (int length : doc.lengths()) {
+                    out.writeInt(length);
+                }
+            }
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Map<Long, int[]>> entry : postings.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<Long, int[]> match : entry.getValue().entrySet()) {
+                    out.writeLong(match.getKey());
+                    for (int frequency : match.getValue()) {
+                        out.writeInt(frequency);
+                    }
+                }
+            }
+        }
+
+        // Nulo si el fichero es de otro formato o de otra versión del análisis
+        static TextIndex readFrom(DataInputStream in) throws IOException {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_FORMAT || in.readInt() != TextAnalyzer.VERSION) {
+                return null;
+            }
+
+            int modelCount = in.readInt();
+            Map<Long, List<String>> names = new HashMap<>();
+            for (int i = 0; i < modelCount; i++) {
+                names.put(in.readLong(), Arrays.asList(readString(in), readString(in)));
+            }
+            TextIndex index = new TextIndex(names);
+
+            record Stored(Long modelId, String color, String description, long version, int[] lengths) {
+            }
+            int docCount = in.readInt();
+            Map<Long, Stored> stored = new HashMap<>();
+            for (int i = 0; i < docCount; i++) {
+                long id = in.readLong();
+                long modelId = in.readLong();
+                String color = readString(in);
+                String description = readString(in);
+                long version = in.readLong();
+                int[] lengths = new int[FIELDS];
+                for (int field = 0; field < FIELDS; field++) {
+                    lengths[field] = in.readInt();
+                }
+                stored.put(id, new Stored(modelId >= 0 ? modelId : null, color, description, version, lengths));
+            }
+
+            int termCount = in.readInt();
+            Map<Long, List<String>> termsByDoc = new HashMap<>();
+            for (int i = 0; i < termCount; i++) {
+                String term = readString(in);
+                int matchCount = in.readInt();
+                Map<Long, int[]> matches = new HashMap<>();
+                for (int j = 0; j < matchCount; j++) {
+                    long id = in.readLong();
+                    int[] frequency = new int[FIELDS];
+                    for (int field = 0; field < FIELDS; field++) {
+                        frequency[field] = in.readInt();
+                    }
+                    matches.put(id, frequency);
+                    termsByDoc.computeIfAbsent(id, key -> new ArrayList<>()).add(term);
+                }
+                index.postings.put(term, matches);
+            }
+
+            stored.forEach((id, doc) -> {
+                List<String> terms = termsByDoc.getOrDefault(id, List.of());
+                index.docs.put(id, new Doc(doc.modelId(), doc.color(), doc.description(), doc.version(), doc.lengths(),
+                        terms.toArray(String[]::new)));
+                for (int field = 0; field < FIELDS; field++) {
+                    index.lengthSums[field] += doc.lengths()[field];
+                }
+                index.idSum += id;
+                index.versionSum += doc.version();
+            });
+            return index;
+        }
+
+        // Las filas escritas sin Hibernate pueden no tener versión; en la suma de la tabla no cuentan
+        private static long versionOf(Long version) {
+            return version != null ? version : 0;
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Términos distintos del vehículo, para poder quitarlo del índice sin recorrerlo entero
+    private record Doc(Long modelId, String color, String description, long version, int[] lengths, String[] terms) {
+    }
+
+    private static final class Score {
+
+        private double value;
+        private int fields;
+
+        void add(double score, int matchedFields) {
+            value += score;
+            fields |= matchedFields;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.MyCars.services;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.events.CatalogRebuiltEvent;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class CatalogService {
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current : rebuild();
+    }
+
+    public CatalogSnapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            // Transacción propia: no reutiliza las entidades ya cargadas en el contexto de la petición
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            readOnly.setReadOnly(true);
+            List<CatalogSnapshot.Brand> brands = databaseBulkhead.call(() -> readOnly.execute(status -> brandRepository.findAllWithModels().stream()
+                    .map(CatalogService::toCatalogBrand)
+                    .toList()));
+            CatalogSnapshot previous = snapshot.get();
+            long version = previous == null ? 1 : previous.version() + 1;
+            Instant builtAt = Instant.now();
+            byte[] json = objectMapper.writeValueAsBytes(new CatalogView(version, builtAt, brands));
+
+            CatalogSnapshot rebuilt = CatalogSnapshot.of(version, builtAt, brands, json);
+            snapshot.set(rebuilt);
+            eventPublisher.publishEvent(new CatalogRebuiltEvent(rebuilt));
+            return rebuilt;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el catálogo", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static CatalogSnapshot.Brand toCatalogBrand(BrandModel brand) {
+        List<CatalogSnapshot.Model> models = brand.getModels() == null ? List.of() : brand.getModels().stream()
+                .map(model -> new CatalogSnapshot.Model(model.getId(), model.getName()))
+                .sorted(Comparator.comparing(CatalogSnapshot.Model::name, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+        return new CatalogSnapshot.Brand(brand.getId(), brand.getName(), models);
+    }
+
+    private record CatalogView(long version, Instant builtAt, List<CatalogSnapshot.Brand> brands) {
+    }
+}
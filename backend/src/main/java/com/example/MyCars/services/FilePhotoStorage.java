@@ -0,0 +1,222 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén en disco repartido en dos niveles de subdirectorios ({@code ab/cd/<nombre>}) a partir
+ * del hash del contenido, para que ningún directorio acumule más de unos pocos miles de
+ * entradas. Las variantes y los precomprimidos de una foto caen en el mismo subdirectorio que
+ * el original. Los ficheros que siguen en la raíz (organización plana anterior) se encuentran
+ * igualmente hasta que se migran.
+ */
+public class FilePhotoStorage implements PhotoStorage {
+
+    static final String QUARANTINE_DIR = ".quarantine";
+
+    static final String STAGING_DIR = ".staging";
+
+    private static final Pattern SHARD = Pattern.compile("^[0-9a-f]{2}$");
+
+    private final Path root;
+
+    private final Path quarantineRoot;
+
+    private final Path staging;
+
+    public FilePhotoStorage(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.quarantineRoot = this.root.resolve(QUARANTINE_DIR);
+        this.staging = this.root.resolve(STAGING_DIR);
+        Files.createDirectories(staging);
+    }
+
+    @Override
+    public Path stagingDirectory() {
+        return staging;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return localPath(name) != null;
+    }
+
+    @Override
+    public boolean store(String name, Path source) throws IOException {
+        Path target = shardedPath(root, name);
+        if (Files.exists(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // En sistemas donde el movimiento atómico no reemplaza: otro llegó antes con el mismo contenido
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        Path file = localPath(name);
+        if (file == null) {
+            throw new NoSuchFileException(name);
+        }
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public Path localPath(String name) {
+        Path sharded = shardedPath(root, name);
+        if (Files.isRegularFile(sharded)) {
+            return sharded;
+        }
+        Path legacy = legacyPath(name);
+        if (Files.isRegularFile(legacy)) {
+            return legacy;
+        }
+        // La migración puede haberlo movido entre las dos comprobaciones
+        return Files.isRegularFile(sharded) ? sharded : null;
+    }
+
+    @Override
+    public boolean delete(String name) throws IOException {
+        boolean deleted = Files.deleteIfExists(shardedPath(root, name));
+        return Files.deleteIfExists(legacyPath(name)) || deleted;
+    }
+
+    @Override
+    public boolean quarantine(String name) throws IOException {
+        Path source = localPath(name);
+        if (source == null) {
+            return false;
+        }
+        Path target = shardedPath(quarantineRoot, name);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        // El plazo de cuarentena cuenta desde ahora, no desde la última escritura
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        return true;
+    }
+
+    @Override
+    public boolean restore(String name) throws IOException {
+        Path target = shardedPath(root, name);
+        for (Path quarantined : new Path[] {shardedPath(quarantineRoot, name), quarantineRoot.resolve(name)}) {
+            if (!Files.isRegularFile(quarantined)) {
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(quarantined, target, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (NoSuchFileException e) {
+                // Purgado entre la comprobación y el traslado
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(quarantined);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean deleteQuarantined(String name) throws IOException {
+        boolean deleted = Files.deleteIfExists(shardedPath(quarantineRoot, name));
+        return Files.deleteIfExists(quarantineRoot.resolve(name)) || deleted;
+    }
+
+    @Override
+    public void list(Area area, Consumer<StoredFile> consumer) throws IOException {
+        Path base = area == Area.PHOTOS ? root : quarantineRoot;
+        if (!Files.isDirectory(base)) {
+            return;
+        }
+        // Ficheros sueltos de la organización plana y después los dos niveles de subdirectorios
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(base)) {
+            for (Path entry : entries) {
+                String entryName = entry.getFileName().toString();
+                if (SHARD.matcher(entryName).matches() && Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    try (DirectoryStream<Path> shards = Files.newDirectoryStream(entry)) {
+                        for (Path shard : shards) {
+                            if (SHARD.matcher(shard.getFileName().toString()).matches()
+                                    && Files.isDirectory(shard, LinkOption.NOFOLLOW_LINKS)) {
+                                listFiles(shard, consumer);
+                            }
+                        }
+                    }
+                } else {
+                    accept(entry, consumer);
+                }
+            }
+        }
+    }
+
+    private static void listFiles(Path directory, Consumer<StoredFile> consumer) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                accept(file, consumer);
+            }
+        }
+    }
+
+    private static void accept(Path file, Consumer<StoredFile> consumer) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (attributes.isRegularFile()) {
+            consumer.accept(new StoredFile(file.getFileName().toString(), attributes.size(),
+                    attributes.lastModifiedTime().toInstant()));
+        }
+    }
+
+    private Path legacyPath(String name) {
+        return root.resolve(checkedName(name));
+    }
+
+    // ab/cd/<nombre>: del propio hash si el nombre es direccionado por contenido, si no del SHA-256 de su raíz
+    static Path shardedPath(Path base, String name) {
+        String stem = PhotoFileNames.stemOf(checkedName(name));
+        String hash = PhotoFileNames.isContentHash(stem) ? stem : sha256(stem);
+        return base.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(name);
+    }
+
+    private static String checkedName(String name) {
+        if (name.isEmpty() || name.startsWith(".") || name.contains("/") || name.contains("\\")) {
+            throw new IllegalArgumentException("Nombre de fichero no válido: " + name);
+        }
+        return name;
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.MyCars.services;
+
+public class InvalidPhotoException extends RuntimeException {
+
+    public enum Reason {
+        EMPTY,
+        TOO_LARGE,
+        UNSUPPORTED_TYPE
+    }
+
+    private final Reason reason;
+
+    public InvalidPhotoException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.MyCars.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.dto.InventoryStats;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.repositories.CarRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Estadísticas del inventario mantenidas en memoria. Cada alta, cambio o baja de un vehículo
+ * aplica su delta a los agregados; un GROUP BY periódico los reconstruye desde cero y corrige
+ * cualquier deriva (cambios hechos fuera de la aplicación, borrados en cascada, etc.).
+ */
+@Service
+public class InventoryStatsService {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private Aggregates aggregates = new Aggregates();
+    private Instant rebuiltAt;
+    private Instant updatedAt;
+
+    // Cambios recibidos mientras se reconstruye; los que el GROUP BY no vio se aplican sobre los agregados nuevos
+    private List<CarChangedEvent> pendingDuringRebuild;
+
+    // Respuesta ya calculada; se descarta cuando cambian los agregados o el catálogo
+    private volatile InventoryStats cached;
+    private volatile long cachedCatalogVersion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.rebuild-interval-ms:600000}", fixedDelayString = "${app.stats.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+                snapshot.setReadOnly(true);
+                databaseBulkhead.call(() -> snapshot.execute(status -> {
+                    // REPEATABLE READ: el GROUP BY y la consulta de versiones de los cambios recibidos ven la misma
+                    // instantánea. Con la conexión liberada al terminar cada transacción (handling_mode) el gestor JPA
+                    // no admite fijar el aislamiento; se fija en la conexión y Hikari lo restaura al devolverla
+                    entityManager.unwrap(Session.class).doWork(
+                            connection -> connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ));
+                    Aggregates rebuilt = new Aggregates();
+                    carRepository.findStatsGroups().forEach(group -> rebuilt.add(group.modelId(), group.status(),
+                            group.expeditionYear(), group.sellingPrice(), group.count(),
+                            group.mileageSum() == null ? 0 : group.mileageSum(), group.mileageCount()));
+
+                    Map<Long, Long> snapshotVersions = new HashMap<>();
+                    Set<Long> createdAfterSnapshot = new HashSet<>();
+                    int replayed = 0;
+                    while (true) {
+                        List<CarChangedEvent> received;
+                        lock.lock();
+                        try {
+                            received = List.copyOf(pendingDuringRebuild.subList(replayed, pendingDuringRebuild.size()));
+                            if (received.isEmpty()) {
+                                aggregates = rebuilt;
+                                rebuiltAt = Instant.now();
+                                updatedAt = rebuiltAt;
+                                cached = null;
+                                return null;
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                        replayUnseen(rebuilt, received, snapshotVersions, createdAfterSnapshot);
+                        replayed += received.size();
+                    }
+                }));
+            } finally {
+                lock.lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Aplica sobre los agregados reconstruidos los cambios recibidos durante la reconstrucción
+     * que la instantánea del GROUP BY no incluía. Un delta repetido se contaría dos veces, así
+     * que cada cambio se contrasta con la versión de su vehículo en la instantánea: una
+     * actualización ya está incluida si la fila tenía esa versión o una posterior, y un borrado
+     * si la fila ya no aparecía (salvo que el alta también fuera posterior).
+     */
+    private void replayUnseen(Aggregates rebuilt, List<CarChangedEvent> events, Map<Long, Long> snapshotVersions,
+            Set<Long> createdAfterSnapshot) {
+        List<Long> unknown = events.stream()
+                .map(CarChangedEvent::carId)
+                .filter(id -> !snapshotVersions.containsKey(id))
+                .distinct()
+                .toList();
+        if (!unknown.isEmpty()) {
+            unknown.forEach(id -> snapshotVersions.put(id, null));
+            carRepository.findVersionsByIdIn(unknown).forEach(car -> snapshotVersions.put(car.id(), car.version()));
+        }
+
+        for (CarChangedEvent event : events) {
+            Long snapshotVersion = snapshotVersions.get(event.carId());
+            boolean seen;
+            if (event.after() == null) {
+                seen = snapshotVersion == null && !createdAfterSnapshot.contains(event.carId());
+            } else {
+                seen = snapshotVersion != null
+                        && (event.after().version() == null || snapshotVersion >= event.after().version());
+                if (!seen && event.before() == null) {
+                    createdAfterSnapshot.add(event.carId());
+                }
+            }
+            if (!seen) {
+                rebuilt.apply(event);
+            }
+        }
+    }
+
+    // Solo cambios confirmados; sin transacción (fallbackExecution) se aplica en el momento
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        lock.lock();
+        try {
+            aggregates.apply(event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            updatedAt = Instant.now();
+            cached = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public InventoryStats getStats() {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        InventoryStats current = cached;
+        if (current != null && cachedCatalogVersion == catalog.version()) {
+            meterRegistry.counter("cache.gets", "cache", "inventory-stats", "result", "hit").increment();
+            return current;
+        }
+        meterRegistry.counter("cache.gets", "cache", "inventory-stats", "result", "miss").increment();
+        lock.lock();
+        try {
+            current = aggregates.toStats(catalog, rebuiltAt, updatedAt);
+            cached = current;
+            cachedCatalogVersion = catalog.version();
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Contadores del inventario. Los precios se guardan como multiconjunto ordenado para que
+     * mínimo y máximo sigan siendo correctos cuando se elimina el vehículo que los marcaba.
+     */
+    private static final class Aggregates {
+
+        private long total;
+        private final Map<CarStatus, Long> byStatus = new EnumMap<>(CarStatus.class);
+        private final Map<Long, Long> byModel = new HashMap<>();
+        private final TreeMap<Integer, Long> byYear = new TreeMap<>();
+        private final TreeMap<BigDecimal, Long> prices = new TreeMap<>();
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private long priceCount;
+        private long mileageSum;
+        private long mileageCount;
+
+        void apply(CarChangedEvent event) {
+            if (event.before() != null) {
+                add(event.before(), -1);
+            }
+            if (event.after() != null) {
+                add(event.after(), 1);
+            }
+        }
+
+        void add(CarSnapshot car, int sign) {
+            add(car.modelId(), car.status(), car.expeditionYear(), car.sellingPrice(), sign,
+                    car.mileage() == null ? 0 : (long) car.mileage() * sign, car.mileage() == null ? 0 : sign);
+        }
+
+        void add(Long modelId, CarStatus status, Integer year, BigDecimal price, long count, long mileage, long mileages) {
+            total += count;
+            if (status != null) {
+                adjust(byStatus, status, count);
+            }
+            if (modelId != null) {
+                adjust(byModel, modelId, count);
+            }
+            if (year != null) {
+                adjust(byYear, year, count);
+            }
+            if (price != null) {
+                adjust(prices, price, count);
+                priceSum = priceSum.add(price.multiply(BigDecimal.valueOf(count)));
+                priceCount += count;
+            }
+            mileageSum += mileage;
+            mileageCount += mileages;
+        }
+
+        InventoryStats toStats(CatalogSnapshot catalog, Instant rebuiltAt, Instant updatedAt) {
+            List<InventoryStats.BrandCount> brands = new ArrayList<>();
+            for (CatalogSnapshot.Brand brand : catalog.brands()) {
+                long brandCount = 0;
+                List<InventoryStats.ModelCount> models = new ArrayList<>();
+                for (CatalogSnapshot.Model model : brand.models()) {
+                    long count = byModel.getOrDefault(model.id(), 0L);
+                    if (count > 0) {
+                        models.add(new InventoryStats.ModelCount(model.id(), model.name(), count));
+                        brandCount += count;
+                    }
+                }
+                if (brandCount > 0) {
+                    models.sort(Comparator.comparingLong(InventoryStats.ModelCount::count).reversed());
+                    brands.add(new InventoryStats.BrandCount(brand.id(), brand.name(), brandCount, List.copyOf(models)));
+                }
+            }
+            brands.sort(Comparator.comparingLong(InventoryStats.BrandCount::count).reversed());
+
+            InventoryStats.PriceStats price = new InventoryStats.PriceStats(priceCount,
+                    priceCount == 0 ? null : priceSum.divide(BigDecimal.valueOf(priceCount), 2, RoundingMode.HALF_UP),
+                    prices.isEmpty() ? null : prices.firstKey(),
+                    prices.isEmpty() ? null : prices.lastKey());
+
+            return new InventoryStats(total,
+                    Collections.unmodifiableMap(new EnumMap<>(byStatus)),
+                    List.copyOf(brands),
+                    price,
+                    mileageCount == 0 ? null : (double) mileageSum / mileageCount,
+                    Collections.unmodifiableMap(new LinkedHashMap<>(byYear)),
+                    rebuiltAt,
+                    updatedAt);
+        }
+
+        private static <K> void adjust(Map<K, Long> counts, K key, long delta) {
+            counts.merge(key, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.MyCars.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cuerpo JSON Merge Patch (RFC 7396) validado contra los campos modificables de una entidad:
+ * cada valor llega convertido al tipo del atributo y null significa vaciar el campo. La clave
+ * "version", si viene, no se modifica: es la versión sobre la que el cliente hizo el cambio.
+ */
+record MergePatch(Map<String, Object> values, Long expectedVersion) {
+
+    private static final String VERSION = "version";
+
+    record Field(Class<?> type, boolean nullable) {
+    }
+
+    static MergePatch parse(Map<String, Object> body, Map<String, Field> fields, ObjectMapper objectMapper) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        Long expectedVersion = null;
+        for (Map.Entry<String, Object> entry : body.entrySet()) {
+            String name = entry.getKey();
+            Object value = entry.getValue();
+            if (VERSION.equals(name)) {
+                expectedVersion = value == null ? null : objectMapper.convertValue(value, Long.class);
+                continue;
+            }
+            Field field = fields.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("El campo '" + name + "' no se puede modificar");
+            }
+            if (value == null && !field.nullable()) {
+                throw new IllegalArgumentException("El campo '" + name + "' es obligatorio");
+            }
+            // convertValue lanza IllegalArgumentException si el valor no es del tipo esperado
+            values.put(name, value == null ? null : objectMapper.convertValue(value, field.type()));
+        }
+        return new MergePatch(values, expectedVersion);
+    }
+}
@@ -1,20 +1,37 @@
 package com.example.MyCars.services;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import com.example.MyCars.models.BrandModel;
 import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
 import com.example.MyCars.repositories.ModelRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class ModelService {
 
+    private static final Map<String, MergePatch.Field> PATCH_FIELDS = Map.of(
+            "name", new MergePatch.Field(String.class, false),
+            "brand", new MergePatch.Field(BrandModel.class, false));
+
     @Autowired
     private ModelRepository modelRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     public List<ModelModel> getAllModels() {
         return modelRepository.findAll();
@@ -29,10 +46,40 @@ public class ModelService {
     }
     
     public ModelModel saveModel(ModelModel model) {
-        return modelRepository.save(model);
+        // El cuerpo de la petición trae la marca solo por id y sin versión: se sustituye por la gestionada
+        if (model.getBrand() != null && model.getBrand().getId() != null) {
+            brandRepository.findById(model.getBrand().getId()).ifPresent(model::setBrand);
+        }
+        ModelModel saved = modelRepository.save(model);
+        catalogService.rebuild();
+        return saved;
+    }
+    
+    // JSON Merge Patch con un único UPDATE; con "version" en el cuerpo, solo si el modelo sigue en ella
+    public Optional<ModelModel> patchModel(Long id, Map<String, Object> body) {
+        MergePatch patch = MergePatch.parse(body, PATCH_FIELDS, objectMapper);
+        if (patch.values().get("brand") instanceof BrandModel brand) {
+            if (brand.getId() == null) {
+                throw new IllegalArgumentException("La marca debe indicar su id");
+            }
+            patch.values().put("brand", brandRepository.findById(brand.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("La marca " + brand.getId() + " no existe")));
+        }
+        if (patch.values().isEmpty()) {
+            return modelRepository.findById(id);
+        }
+        if (modelRepository.patch(id, patch.expectedVersion(), patch.values()) == 0) {
+            if (!modelRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new ObjectOptimisticLockingFailureException(ModelModel.class, id);
+        }
+        catalogService.rebuild();
+        return modelRepository.findById(id);
     }
     
     public void deleteModel(Long id) {
         modelRepository.deleteById(id);
+        catalogService.rebuild();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.MyCars.services;
+
+import java.util.regex.Pattern;
+
+/**
+ * Nombres de los ficheros de fotos: URL pública, nombre en el almacén y raíz común de un
+ * original con sus variantes y precomprimidos.
+ */
+public final class PhotoFileNames {
+
+    public static final String URL_PREFIX = "/uploads/cars/";
+
+    private static final Pattern VARIANT_SUFFIX = Pattern.compile("_w\\d+$");
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("^[0-9a-f]{64}$");
+
+    private PhotoFileNames() {
+    }
+
+    public static String urlOf(String fileName) {
+        return URL_PREFIX + fileName;
+    }
+
+    public static String fileNameOf(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    // abc.jpg, abc_w160.jpg, abc.jpg.br → abc
+    public static String stemOf(String fileName) {
+        String name = fileName;
+        if (name.endsWith(".br") || name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return VARIANT_SUFFIX.matcher(name).replaceFirst("");
+    }
+
+    public static boolean isContentHash(String stem) {
+        return CONTENT_HASH.matcher(stem).matches();
+    }
+}
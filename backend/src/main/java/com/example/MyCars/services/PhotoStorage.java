@@ -0,0 +1,55 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de los ficheros de fotos (originales y variantes), direccionados por su nombre
+ * ({@code <sha256>.png}, {@code <sha256>_w160.png}...). Las URLs públicas no dependen del
+ * almacén: siempre son {@code /uploads/cars/<nombre>}. Los ficheros se preparan en local, en
+ * {@link #stagingDirectory()}, y se entregan ya completos con {@link #store}.
+ *
+ * <p>Las implementaciones siguen encontrando los ficheros del directorio plano anterior
+ * ({@code app.upload.dir}) hasta que {@link PhotoStorageMigrationService} los traslada.
+ */
+public interface PhotoStorage {
+
+    enum Area {
+        PHOTOS,
+        QUARANTINE
+    }
+
+    record StoredFile(String name, long size, Instant lastModified) {
+    }
+
+    // Directorio local para temporales; en el mismo sistema de ficheros que el almacén si es local
+    Path stagingDirectory();
+
+    boolean exists(String name) throws IOException;
+
+    /**
+     * Incorpora {@code source} con el nombre indicado, moviéndolo. Si el almacén ya tiene ese
+     * nombre en su organización propia devuelve false y no toca {@code source}.
+     */
+    boolean store(String name, Path source) throws IOException;
+
+    // NoSuchFileException si no existe
+    InputStream open(String name) throws IOException;
+
+    // Fichero local con el contenido (rangos, sendfile), o null si no existe o el almacén es remoto
+    Path localPath(String name);
+
+    boolean delete(String name) throws IOException;
+
+    boolean quarantine(String name) throws IOException;
+
+    boolean restore(String name) throws IOException;
+
+    boolean deleteQuarantined(String name) throws IOException;
+
+    // Recorre todos los ficheros de un área; en la cuarentena, lastModified es el momento del traslado
+    void list(Area area, Consumer<StoredFile> consumer) throws IOException;
+}
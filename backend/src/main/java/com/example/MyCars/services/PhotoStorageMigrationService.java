@@ -0,0 +1,157 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.MyCars.dto.PhotoStorageMigrationReport;
+
+/**
+ * Traslada en segundo plano los ficheros del directorio plano anterior ({@code app.upload.dir})
+ * al {@link PhotoStorage} configurado, sin parar el servicio: mientras dura, el almacén sigue
+ * encontrando en el directorio plano lo que aún no se ha movido. Va por lotes y con pausas
+ * para no competir con las subidas; cada fichero se mueve con su bloqueo de contenido de
+ * {@link CarPhotoService} tomado, de modo que un borrado no puede cruzarse con el traslado y
+ * las subidas de otros ficheros no esperan a que termine el lote.
+ */
+@Service
+public class PhotoStorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoStorageMigrationService.class);
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.photos.storage.migration.batch-size:200}")
+    private int batchSize;
+
+    // Pausa entre lotes
+    @Value("${app.photos.storage.migration.pause-ms:100}")
+    private long pauseMillis;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @Autowired
+    private CarPhotoService carPhotoService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Progress progress;
+
+    /**
+     * Lanza la migración en un hilo virtual. Devuelve false si ya hay una en curso.
+     */
+    public boolean startMigration() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Progress current = new Progress();
+        progress = current;
+        Thread.ofVirtual().name("photo-storage-migration").start(() -> {
+            try {
+                migrate(current);
+                current.finishedAt = Instant.now();
+                log.info("Migración del almacén de fotos terminada: {}", current.report(false));
+            } catch (IOException | RuntimeException e) {
+                log.error("La migración del almacén de fotos ha fallado", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (current.finishedAt == null) {
+                    current.finishedAt = Instant.now();
+                }
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    // Null si no se ha lanzado ninguna
+    public PhotoStorageMigrationReport getReport() {
+        Progress current = progress;
+        return current != null ? current.report(running.get()) : null;
+    }
+
+    private void migrate(Progress progress) throws IOException, InterruptedException {
+        Path legacyDirectory = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(legacyDirectory)) {
+            return;
+        }
+        List<Path> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(legacyDirectory)) {
+            for (Path file : files) {
+                // Los ocultos son temporales o directorios del propio almacén
+                if (file.getFileName().toString().startsWith(".") || !Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+                    continue;
+                }
+                progress.scannedFiles++;
+                batch.add(file);
+                if (batch.size() >= batchSize) {
+                    moveBatch(batch, progress);
+                    batch.clear();
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            moveBatch(batch, progress);
+        }
+    }
+
+    private void moveBatch(List<Path> batch, Progress progress) {
+        for (Path file : batch) {
+            String name = file.getFileName().toString();
+            carPhotoService.withContentLock(PhotoFileNames.urlOf(name), () -> move(file, name, progress));
+        }
+    }
+
+    private void move(Path file, String name, Progress progress) {
+        try {
+            long size = Files.size(file);
+            if (photoStorage.store(name, file)) {
+                progress.movedFiles++;
+                progress.movedBytes += size;
+            } else {
+                // Ya estaba en el almacén con el mismo nombre (mismo contenido): la copia plana sobra
+                Files.deleteIfExists(file);
+                progress.duplicateFiles++;
+            }
+        } catch (NoSuchFileException e) {
+            // Borrado entre el recorrido y el traslado
+        } catch (IOException | IllegalArgumentException e) {
+            progress.failedFiles++;
+            log.warn("No se pudo migrar {} al almacén de fotos: {}", name, e.getMessage());
+        }
+    }
+
+    // Lo escribe solo el hilo de la migración; los volatile bastan para consultarlo desde otros
+    private static final class Progress {
+        final Instant startedAt = Instant.now();
+        volatile Instant finishedAt;
+        volatile long scannedFiles;
+        volatile long movedFiles;
+        volatile long movedBytes;
+        volatile long duplicateFiles;
+        volatile long failedFiles;
+
+        PhotoStorageMigrationReport report(boolean running) {
+            return new PhotoStorageMigrationReport(startedAt, finishedAt, running, scannedFiles, movedFiles,
+                    movedBytes, duplicateFiles, failedFiles);
+        }
+    }
+}
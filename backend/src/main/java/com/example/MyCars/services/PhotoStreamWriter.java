@@ -0,0 +1,133 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Escribe una subida en un temporal en una sola pasada por canales NIO, calculando
+ * a la vez el tamaño, el SHA-256 y el tipo de imagen a partir de los primeros bytes.
+ */
+public final class PhotoStreamWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Bytes necesarios para reconocer todas las firmas soportadas
+    private static final int SNIFF_LENGTH = 12;
+
+    public enum ImageType {
+        JPEG("jpg"),
+        PNG("png"),
+        GIF("gif"),
+        WEBP("webp");
+
+        private final String extension;
+
+        ImageType(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        static ImageType sniff(byte[] header, int length) {
+            if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+                return JPEG;
+            }
+            if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                    && header[4] == 0x0D && header[5] == 0x0A && header[6] == 0x1A && header[7] == 0x0A) {
+                return PNG;
+            }
+            if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8'
+                    && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+                return GIF;
+            }
+            if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                    && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+                return WEBP;
+            }
+            return null;
+        }
+    }
+
+    public record StagedPhoto(Path tempFile, String contentHash, ImageType type, long size) {
+
+        public String fileName() {
+            return contentHash + "." + type.getExtension();
+        }
+    }
+
+    private PhotoStreamWriter() {
+    }
+
+    /**
+     * Vuelca el canal en un temporal dentro de {@code directory}. Si la subida falla o no
+     * es una imagen válida el temporal se elimina y no queda ningún fichero a medias.
+     */
+    public static StagedPhoto write(ReadableByteChannel in, Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, ".upload-", ".tmp");
+        boolean staged = false;
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MessageDigest digest = sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] header = new byte[SNIFF_LENGTH];
+            int headerLength = 0;
+            long size = 0;
+
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                int chunk = buffer.remaining();
+                size += chunk;
+                if (size > maxBytes) {
+                    throw new InvalidPhotoException(InvalidPhotoException.Reason.TOO_LARGE,
+                            "La foto supera el tamaño máximo de " + maxBytes + " bytes");
+                }
+                if (headerLength < SNIFF_LENGTH) {
+                    int copied = Math.min(chunk, SNIFF_LENGTH - headerLength);
+                    buffer.get(buffer.position(), header, headerLength, copied);
+                    headerLength += copied;
+                }
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+
+            if (size == 0) {
+                throw new InvalidPhotoException(InvalidPhotoException.Reason.EMPTY, "La foto está vacía");
+            }
+            ImageType type = ImageType.sniff(header, headerLength);
+            if (type == null) {
+                throw new InvalidPhotoException(InvalidPhotoException.Reason.UNSUPPORTED_TYPE,
+                        "El fichero no es una imagen JPEG, PNG, GIF o WebP");
+            }
+
+            // Datos en disco antes de publicar el fichero con el rename atómico
+            out.force(false);
+            staged = true;
+            return new StagedPhoto(tempFile, HexFormat.of().formatHex(digest.digest()), type, size);
+        } finally {
+            if (!staged) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.MyCars.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.MyCars.dto.PendingVariantPhoto;
+import com.example.MyCars.events.CarPhotosChangedEvent;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.PhotoVariant;
+import com.example.MyCars.repositories.CarPhotoRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+public class PhotoVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoVariantService.class);
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("photoVariantExecutor")
+    private ThreadPoolExecutor photoVariantExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.photos.variants.backfill-batch:50}")
+    private int backfillBatch;
+
+    // Fotos encoladas o en curso, para no encolar dos veces la misma desde backfill()
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Último id encolado por backfill(); solo lo usa el hilo del planificador
+    private long backfillAfterId;
+
+    public void schedule(CarPhotoModel photo) {
+        submit(photo.getId(), photo.getCar() != null ? photo.getCar().getId() : null, photo.getUrl());
+    }
+
+    /**
+     * Encola las fotos que siguen sin variantes: las anteriores a V5, las rechazadas con la cola
+     * llena y las que se perdieron con un reinicio. Cada pasada toma como mucho un tramo, y nunca
+     * más de lo que cabe en la cola, y sigue por id donde lo dejó la anterior. Al llegar al final
+     * vuelve a empezar, de modo que una foto que falla siempre no impide avanzar al resto.
+     */
+    @Scheduled(initialDelayString = "${app.photos.variants.backfill-interval-ms:60000}", fixedDelayString = "${app.photos.variants.backfill-interval-ms:60000}")
+    public void backfill() {
+        int room = Math.min(backfillBatch, photoVariantExecutor.getQueue().remainingCapacity());
+        if (room <= 0) {
+            return;
+        }
+        List<PendingVariantPhoto> pending = carPhotoRepository.findPendingVariants(backfillAfterId, Limit.of(room));
+        if (pending.isEmpty()) {
+            backfillAfterId = 0;
+            return;
+        }
+        for (PendingVariantPhoto photo : pending) {
+            if (!inFlight.contains(photo.id()) && !submit(photo.id(), photo.carId(), photo.url())) {
+                // Cola llena: se retoma desde esta foto en la siguiente pasada
+                return;
+            }
+            backfillAfterId = photo.id();
+        }
+        if (pending.size() < room) {
+            backfillAfterId = 0;
+        }
+    }
+
+    // La foto queda con variants_ready = false si se rechaza: la recoge una pasada posterior de backfill()
+    private boolean submit(Long photoId, Long carId, String url) {
+        if (!inFlight.add(photoId)) {
+            return true;
+        }
+        String fileName = PhotoFileNames.fileNameOf(url);
+        try {
+            photoVariantExecutor.execute(() -> {
+                try {
+                    generate(photoId, carId, fileName);
+                } finally {
+                    inFlight.remove(photoId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(photoId);
+            meterRegistry.counter("mycars.photos.variants.rejected").increment();
+            log.warn("Cola de variantes llena; la foto {} se servirá en tamaño original hasta una pasada posterior", photoId);
+            return false;
+        }
+    }
+
+    public void deleteVariants(String url) throws IOException {
+        String fileName = PhotoFileNames.fileNameOf(url);
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            photoStorage.delete(variant.fileNameFor(fileName));
+        }
+    }
+
+    private void generate(Long photoId, Long carId, String fileName) {
+        try {
+            BufferedImage source;
+            try (InputStream in = photoStorage.open(fileName)) {
+                source = read(in);
+            }
+            if (source == null) {
+                log.info("Formato de imagen no soportado para variantes: {}", fileName);
+                return;
+            }
+            for (PhotoVariant variant : PhotoVariant.values()) {
+                String target = variant.fileNameFor(fileName);
+                if (photoStorage.exists(target)) {
+                    continue;
+                }
+                // Se prepara en local y se entrega completa al almacén
+                Path temp = Files.createTempFile(photoStorage.stagingDirectory(), ".variant-", ".tmp");
+                try {
+                    if (source.getWidth() <= variant.getWidth() && sameFormat(fileName, target)) {
+                        // No se amplía: si el original ya cabe, la variante es una copia exacta
+                        try (InputStream in = photoStorage.open(fileName)) {
+                            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    } else {
+                        write(resize(source, variant.getWidth(), target.endsWith(".png")), temp, target);
+                    }
+                    photoStorage.store(target, temp);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            carPhotoRepository.markVariantsReady(photoId);
+            if (carId != null) {
+                eventPublisher.publishEvent(new CarPhotosChangedEvent(carId));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("No se pudieron generar las variantes de la foto {}", photoId, e);
+        }
+    }
+
+    // Lee la imagen submuestreando al decodificar cuando es mucho mayor que la variante más grande
+    private BufferedImage read(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = reader.getWidth(0) / (PhotoVariant.DETAIL.getWidth() * 2);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxWidth, boolean keepAlpha) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        boolean alpha = keepAlpha && source.getColorModel().hasAlpha();
+
+        // Reducción progresiva a la mitad para evitar el aliasing de un único escalado bilineal
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = currentWidth == width ? height : Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    // JPEG no admite transparencias: se compone sobre fondo blanco
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private static void write(BufferedImage image, Path file, String targetName) throws IOException {
+        String format = targetName.endsWith(".png") ? "png" : "jpeg";
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static boolean sameFormat(String fileName, String target) {
+        String name = fileName.toLowerCase();
+        String extension = target.endsWith(".png") ? ".png" : ".jpg";
+        return name.endsWith(extension) || (extension.equals(".jpg") && name.endsWith(".jpeg"));
+    }
+}
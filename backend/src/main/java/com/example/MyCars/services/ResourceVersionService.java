@@ -0,0 +1,96 @@
+package com.example.MyCars.services;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.MyCars.dto.VersionStamp;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarPhotosChangedEvent;
+import com.example.MyCars.events.CatalogRebuiltEvent;
+
+/**
+ * Contadores de versión en memoria para las peticiones condicionales: los GET comparan el ETag
+ * sin cargar ni serializar entidades. Los contadores se incrementan cuando el cambio ya está
+ * confirmado, así un ETag nuevo nunca acompaña a datos antiguos. Empiezan de cero en cada
+ * arranque; el instante de arranque forma parte del ETag para que no se repitan.
+ */
+@Service
+public class ResourceVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Instant startedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private final Counter catalog = new Counter(startedAt);
+    private final Counter cars = new Counter(startedAt);
+    // Solo los vehículos modificados desde el arranque; los borrados se conservan para que su ETag no se repita
+    private final Map<Long, Counter> carsById = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onCatalogRebuilt(CatalogRebuiltEvent event) {
+        catalog.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        carChanged(event.carId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarPhotosChanged(CarPhotosChangedEvent event) {
+        carChanged(event.carId());
+    }
+
+    // Las marcas incluyen sus modelos y los modelos su marca: comparten versión
+    public VersionStamp catalog() {
+        State state = catalog.get();
+        return new VersionStamp("catalog-" + epoch + "-" + state.value(), state.modifiedAt());
+    }
+
+    // Los vehículos incluyen el nombre de su marca y modelo: dependen también del catálogo
+    public VersionStamp cars() {
+        return combine("cars", cars.get(), catalog.get());
+    }
+
+    public VersionStamp car(Long id) {
+        Counter counter = carsById.get(id);
+        return combine("car-" + id, counter != null ? counter.get() : new State(0, startedAt), catalog.get());
+    }
+
+    private void carChanged(Long id) {
+        carsById.computeIfAbsent(id, key -> new Counter(startedAt)).increment();
+        cars.increment();
+    }
+
+    private VersionStamp combine(String resource, State own, State catalogState) {
+        Instant modifiedAt = own.modifiedAt().isAfter(catalogState.modifiedAt()) ? own.modifiedAt() : catalogState.modifiedAt();
+        return new VersionStamp(resource + "-" + epoch + "-" + own.value() + "." + catalogState.value(), modifiedAt);
+    }
+
+    private record State(long value, Instant modifiedAt) {
+    }
+
+    // Valor y fecha se leen siempre juntos
+    private static final class Counter {
+
+        private final AtomicReference<State> state;
+
+        Counter(Instant createdAt) {
+            state = new AtomicReference<>(new State(0, createdAt));
+        }
+
+        State get() {
+            return state.get();
+        }
+
+        void increment() {
+            state.updateAndGet(current -> new State(current.value() + 1, Instant.now()));
+        }
+    }
+}
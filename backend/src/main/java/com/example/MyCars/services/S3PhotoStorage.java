@@ -0,0 +1,310 @@
+package com.example.MyCars.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Almacén en un bucket compatible con S3 (MinIO en local, u otro servicio con la misma API),
+ * con direccionamiento por ruta: {@code <endpoint>/<bucket>/cars/<nombre>} y
+ * {@code <endpoint>/<bucket>/quarantine/<nombre>}. Las peticiones se firman con SigV4 sin
+ * firmar el cuerpo. Los ficheros que sigan en el directorio plano anterior se sirven desde
+ * allí hasta que la migración los sube al bucket.
+ */
+public class S3PhotoStorage implements PhotoStorage {
+
+    private static final String PHOTOS_PREFIX = "cars/";
+
+    private static final String QUARANTINE_PREFIX = "quarantine/";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI endpoint;
+
+    private final String bucket;
+
+    private final S3RequestSigner signer;
+
+    private final Path legacyDirectory;
+
+    private final Path staging;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public S3PhotoStorage(URI endpoint, String bucket, String region, String accessKey, String secretKey,
+            Path legacyDirectory, Path staging) throws IOException {
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.legacyDirectory = legacyDirectory.toAbsolutePath().normalize();
+        this.staging = staging.toAbsolutePath().normalize();
+        Files.createDirectories(this.staging);
+    }
+
+    @Override
+    public Path stagingDirectory() {
+        return staging;
+    }
+
+    @Override
+    public boolean exists(String name) throws IOException {
+        return head(PHOTOS_PREFIX + name) || localPath(name) != null;
+    }
+
+    @Override
+    public boolean store(String name, Path source) throws IOException {
+        String key = PHOTOS_PREFIX + name;
+        if (head(key)) {
+            return false;
+        }
+        String contentType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        HttpResponse<String> response = send("PUT", key, new TreeMap<>(), Map.of("content-type", contentType),
+                BodyPublishers.ofFile(source), BodyHandlers.ofString());
+        check(response, "PUT", key);
+        Files.deleteIfExists(source);
+        return true;
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        String key = PHOTOS_PREFIX + name;
+        HttpResponse<InputStream> response = send("GET", key, new TreeMap<>(), Map.of(),
+                BodyPublishers.noBody(), BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() != 404) {
+            throw new IOException("S3 GET " + key + ": HTTP " + response.statusCode());
+        }
+        Path legacy = localPath(name);
+        if (legacy == null) {
+            throw new NoSuchFileException(name);
+        }
+        return Files.newInputStream(legacy);
+    }
+
+    @Override
+    public Path localPath(String name) {
+        Path legacy = legacyDirectory.resolve(name).normalize();
+        return legacy.getParent().equals(legacyDirectory) && Files.isRegularFile(legacy) ? legacy : null;
+    }
+
+    @Override
+    public boolean delete(String name) throws IOException {
+        boolean deleted = deleteObject(PHOTOS_PREFIX + name);
+        Path legacy = localPath(name);
+        return (legacy != null && Files.deleteIfExists(legacy)) || deleted;
+    }
+
+    @Override
+    public boolean quarantine(String name) throws IOException {
+        String key = PHOTOS_PREFIX + name;
+        if (head(key)) {
+            // La copia recibe fecha nueva: el plazo de cuarentena cuenta desde ahora
+            copy(key, QUARANTINE_PREFIX + name);
+            deleteObject(key);
+            return true;
+        }
+        Path legacy = localPath(name);
+        if (legacy == null) {
+            return false;
+        }
+        String target = QUARANTINE_PREFIX + name;
+        check(send("PUT", target, new TreeMap<>(), Map.of(), BodyPublishers.ofFile(legacy), BodyHandlers.ofString()), "PUT", target);
+        Files.deleteIfExists(legacy);
+        return true;
+    }
+
+    @Override
+    public boolean restore(String name) throws IOException {
+        String key = QUARANTINE_PREFIX + name;
+        if (!head(key)) {
+            return false;
+        }
+        copy(key, PHOTOS_PREFIX + name);
+        deleteObject(key);
+        return true;
+    }
+
+    @Override
+    public boolean deleteQuarantined(String name) throws IOException {
+        return deleteObject(QUARANTINE_PREFIX + name);
+    }
+
+    @Override
+    public void list(Area area, Consumer<StoredFile> consumer) throws IOException {
+        String prefix = area == Area.PHOTOS ? PHOTOS_PREFIX : QUARANTINE_PREFIX;
+        String continuationToken = null;
+        do {
+            SortedMap<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            query.put("delimiter", "/");
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<byte[]> response = send("GET", null, query, Map.of(), BodyPublishers.noBody(), BodyHandlers.ofByteArray());
+            check(response, "GET", "?list-type=2&prefix=" + prefix);
+            Document document = parse(response.body());
+            NodeList contents = document.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element object = (Element) contents.item(i);
+                String key = text(object, "Key");
+                consumer.accept(new StoredFile(key.substring(prefix.length()), Long.parseLong(text(object, "Size")),
+                        Instant.parse(text(object, "LastModified"))));
+            }
+            continuationToken = "true".equals(text(document.getDocumentElement(), "IsTruncated"))
+                    ? text(document.getDocumentElement(), "NextContinuationToken")
+                    : null;
+        } while (continuationToken != null);
+
+        if (area == Area.PHOTOS && Files.isDirectory(legacyDirectory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(legacyDirectory)) {
+                for (Path file : files) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isRegularFile()) {
+                        consumer.accept(new StoredFile(file.getFileName().toString(), attributes.size(),
+                                attributes.lastModifiedTime().toInstant()));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean head(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, new TreeMap<>(), Map.of(), BodyPublishers.noBody(), BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, "HEAD", key);
+        return true;
+    }
+
+    // S3 responde 204 exista o no el objeto; se consulta antes para saber si había algo que borrar
+    private boolean deleteObject(String key) throws IOException {
+        if (!head(key)) {
+            return false;
+        }
+        check(send("DELETE", key, new TreeMap<>(), Map.of(), BodyPublishers.noBody(), BodyHandlers.discarding()), "DELETE", key);
+        return true;
+    }
+
+    private void copy(String sourceKey, String targetKey) throws IOException {
+        String source = "/" + bucket + "/" + S3RequestSigner.encode(sourceKey, false);
+        HttpResponse<String> response = send("PUT", targetKey, new TreeMap<>(), Map.of("x-amz-copy-source", source),
+                BodyPublishers.noBody(), BodyHandlers.ofString());
+        // Una copia puede fallar con 200 y el error en el cuerpo
+        if (response.body().contains("<Error>")) {
+            throw new IOException("S3 COPY " + sourceKey + " -> " + targetKey + ": " + response.body());
+        }
+        check(response, "COPY", targetKey);
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, SortedMap<String, String> query, Map<String, String> extraHeaders,
+            BodyPublisher body, BodyHandler<T> handler) throws IOException {
+        String basePath = endpoint.getRawPath() == null ? "" : endpoint.getRawPath().replaceAll("/+$", "");
+        String path = basePath + "/" + S3RequestSigner.encode(bucket, false) + (key != null ? "/" + S3RequestSigner.encode(key, false) : "");
+
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", hostHeader());
+        headers.put("x-amz-content-sha256", S3RequestSigner.UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", AMZ_DATE.format(Instant.now()));
+        headers.putAll(extraHeaders);
+
+        String queryString = query.isEmpty() ? "" : "?" + S3RequestSigner.canonicalQuery(query);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + path + queryString))
+                .timeout(TIMEOUT)
+                .method(method, body)
+                .header("Authorization", signer.authorization(method, path, query, headers));
+        // HttpClient pone Host por su cuenta, con el mismo valor que se ha firmado
+        headers.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                request.header(name, value);
+            }
+        });
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Petición S3 interrumpida");
+        }
+    }
+
+    // El mismo valor que envía HttpClient: el puerto solo si no es el de por defecto
+    private String hostHeader() {
+        int port = endpoint.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equalsIgnoreCase(endpoint.getScheme()) ? port == 443 : port == 80);
+        return defaultPort ? endpoint.getHost() : endpoint.getHost() + ":" + port;
+    }
+
+    private static void check(HttpResponse<?> response, String method, String key) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 " + method + " " + key + ": HTTP " + response.statusCode());
+        }
+    }
+
+    private static Document parse(byte[] xml) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(new ByteArrayInputStream(xml));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Respuesta de S3 no válida", e);
+        }
+    }
+
+    // Texto del primer hijo directo con ese nombre, o null
+    private static String text(Element parent, String tag) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element element && tag.equals(element.getTagName())) {
+                return element.getTextContent();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.MyCars.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.dto.Suggestion;
+import com.example.MyCars.events.CarChangedEvent;
+import com.example.MyCars.events.CarSnapshot;
+import com.example.MyCars.events.CatalogRebuiltEvent;
+import com.example.MyCars.repositories.CarRepository;
+
+/**
+ * Autocompletado de marcas, modelos y matrículas sin consultar la base de datos. Las claves son
+ * texto normalizado (sin tildes, en minúsculas) en mapas ordenados, así que un prefijo es un
+ * rango del mapa. Los nombres se indexan también por cada palabra ("rover" encuentra
+ * "Land Rover"); las matrículas, sin espacios ni guiones.
+ */
+@Service
+public class SuggestService {
+
+    // Separa la clave de búsqueda del identificador de la entrada; ordena antes que cualquier carácter
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    // Entradas examinadas como máximo por cada resultado pedido: acota el coste de cada pulsación
+    private static final int SCAN_FACTOR = 4;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    // Marcas y modelos: se sustituyen enteros cada vez que se reconstruye el catálogo
+    private volatile NavigableMap<String, Suggestion> names = new ConcurrentSkipListMap<>();
+    private volatile Map<Long, String> modelLabels = Map.of();
+
+    private volatile ConcurrentSkipListMap<String, Long> plates = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentHashMap<Long, PlateEntry> platesById = new ConcurrentHashMap<>();
+    private final ReentrantLock platesLock = new ReentrantLock();
+    private List<CarChangedEvent> pendingDuringLoad;
+
+    @EventListener
+    public void onCatalogRebuilt(CatalogRebuiltEvent event) {
+        NavigableMap<String, Suggestion> index = new ConcurrentSkipListMap<>();
+        Map<Long, String> labels = new HashMap<>();
+        for (CatalogSnapshot.Brand brand : event.snapshot().brands()) {
+            addName(index, new Suggestion(Suggestion.Type.BRAND, brand.id(), brand.name(), null));
+            for (CatalogSnapshot.Model model : brand.models()) {
+                addName(index, new Suggestion(Suggestion.Type.MODEL, model.id(), model.name(), brand.name()));
+                labels.put(model.id(), brand.name() + " " + model.name());
+            }
+        }
+        names = index;
+        modelLabels = labels;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPlates() {
+        platesLock.lock();
+        try {
+            pendingDuringLoad = new ArrayList<>();
+        } finally {
+            platesLock.unlock();
+        }
+
+        ConcurrentSkipListMap<String, Long> loadedPlates = new ConcurrentSkipListMap<>();
+        ConcurrentHashMap<Long, PlateEntry> loadedById = new ConcurrentHashMap<>();
+        boolean loaded = false;
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            databaseBulkhead.call(() -> readOnly.execute(status -> {
+                try (Stream<CarSnapshot> cars = carRepository.streamSnapshots()) {
+                    cars.forEach(car -> putPlate(loadedPlates, loadedById, car));
+                }
+                return null;
+            }));
+            loaded = true;
+        } finally {
+            platesLock.lock();
+            try {
+                if (loaded) {
+                    pendingDuringLoad.forEach(event -> applyPlate(loadedPlates, loadedById, event));
+                    plates = loadedPlates;
+                    platesById = loadedById;
+                }
+                pendingDuringLoad = null;
+            } finally {
+                platesLock.unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        platesLock.lock();
+        try {
+            applyPlate(plates, platesById, event);
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(event);
+            }
+        } finally {
+            platesLock.unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String query, Set<Suggestion.Type> types, int limit) {
+        String folded = TextNormalizer.fold(query);
+        if (folded.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int budget = limit * SCAN_FACTOR;
+
+        // La misma entrada puede aparecer por varias de sus palabras; se queda la primera
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        if (types.contains(Suggestion.Type.BRAND) || types.contains(Suggestion.Type.MODEL)) {
+            int scanned = 0;
+            for (Map.Entry<String, Suggestion> entry : prefixRange(names, folded).entrySet()) {
+                if (scanned++ >= budget) {
+                    break;
+                }
+                Suggestion suggestion = entry.getValue();
+                if (types.contains(suggestion.type())) {
+                    candidates.putIfAbsent(suggestion.type() + ":" + suggestion.id(), new Candidate(suggestion, rank(suggestion.label(), folded)));
+                }
+            }
+        }
+
+        String compact = TextNormalizer.foldCompact(query);
+        if (types.contains(Suggestion.Type.PLATE) && !compact.isEmpty()) {
+            Map<Long, String> labels = modelLabels;
+            int scanned = 0;
+            for (Long carId : prefixRange(plates, compact).values()) {
+                if (scanned++ >= budget) {
+                    break;
+                }
+                PlateEntry plate = platesById.get(carId);
+                if (plate != null) {
+                    Suggestion suggestion = new Suggestion(Suggestion.Type.PLATE, carId, plate.plate(), labels.get(plate.modelId()));
+                    candidates.putIfAbsent("PLATE:" + carId, new Candidate(suggestion, plate.key().equals(compact) ? 0 : 1));
+                }
+            }
+        }
+
+        return candidates.values().stream()
+                .sorted(Comparator.comparingInt(Candidate::rank)
+                        .thenComparing(candidate -> candidate.suggestion().type())
+                        .thenComparingInt(candidate -> candidate.suggestion().label().length())
+                        .thenComparing(candidate -> candidate.suggestion().label(), String.CASE_INSENSITIVE_ORDER))
+                .limit(limit)
+                .map(Candidate::suggestion)
+                .toList();
+    }
+
+    private static void addName(NavigableMap<String, Suggestion> index, Suggestion suggestion) {
+        String folded = TextNormalizer.fold(suggestion.label());
+        String suffix = KEY_SEPARATOR + suggestion.type().name() + ":" + suggestion.id();
+        index.put(folded + suffix, suggestion);
+        // Cada palabra posterior a la primera también es punto de entrada
+        for (int i = 1; i < folded.length(); i++) {
+            if (folded.charAt(i - 1) == ' ' && folded.charAt(i) != ' ') {
+                index.put(folded.substring(i) + suffix, suggestion);
+            }
+        }
+    }
+
+    private static void applyPlate(NavigableMap<String, Long> plateIndex, Map<Long, PlateEntry> byId, CarChangedEvent event) {
+        PlateEntry previous = byId.remove(event.carId());
+        if (previous != null) {
+            plateIndex.remove(previous.key() + KEY_SEPARATOR + event.carId());
+        }
+        if (event.after() != null) {
+            putPlate(plateIndex, byId, event.after());
+        }
+    }
+
+    private static void putPlate(NavigableMap<String, Long> plateIndex, Map<Long, PlateEntry> byId, CarSnapshot car) {
+        if (car.licensePlate() == null) {
+            return;
+        }
+        String key = TextNormalizer.foldCompact(car.licensePlate());
+        byId.put(car.id(), new PlateEntry(car.licensePlate(), key, car.modelId()));
+        plateIndex.put(key + KEY_SEPARATOR + car.id(), car.id());
+    }
+
+    private static <V> NavigableMap<String, V> prefixRange(NavigableMap<String, V> index, String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // 0: coincide entero; 1: empieza por el texto; 2: coincide una palabra interior
+    private static int rank(String label, String folded) {
+        String foldedLabel = TextNormalizer.fold(label);
+        if (foldedLabel.equals(folded)) {
+            return 0;
+        }
+        return foldedLabel.startsWith(folded) ? 1 : 2;
+    }
+
+    private record PlateEntry(String plate, String key, Long modelId) {
+    }
+
+    private record Candidate(Suggestion suggestion, int rank) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.MyCars.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Análisis de texto del índice de búsqueda: separa palabras, las normaliza con
+ * {@link TextNormalizer}, descarta palabras vacías y las reduce a una raíz ligera común al
+ * español y al inglés (plurales, género y algunos sufijos frecuentes). Consultas y documentos
+ * pasan por el mismo análisis, así que "rojas" encuentra "rojo" y "brakes" encuentra "brake".
+ */
+public final class TextAnalyzer {
+
+    // Cambia cada vez que cambia el resultado del análisis: invalida los índices guardados en disco
+    public static final int VERSION = 1;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{M}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            // español
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los", "mas", "muy", "o", "para",
+            "pero", "por", "que", "se", "sin", "su", "sus", "un", "una", "unas", "unos", "y",
+            // inglés
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "its", "of", "on", "or",
+            "the", "this", "to", "very", "with");
+
+    private TextAnalyzer() {
+    }
+
+    // Término con su posición en el texto original, para resaltar coincidencias
+    public record Token(String term, int start, int end) {
+    }
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String word = TextNormalizer.fold(matcher.group());
+            if (!word.isEmpty() && !STOPWORDS.contains(word)) {
+                tokens.add(new Token(stem(word), matcher.start(), matcher.end()));
+            }
+        }
+        return tokens;
+    }
+
+    public static List<String> terms(String text) {
+        return tokenize(text).stream().map(Token::term).toList();
+    }
+
+    static String stem(String word) {
+        if (word.length() <= 3 || !word.chars().allMatch(Character::isLetter)) {
+            return word;
+        }
+        String stem = word;
+        if (stem.length() > 7 && stem.endsWith("mente")) {
+            stem = strip(stem, 5);
+        } else if (stem.length() > 5 && stem.endsWith("ing")) {
+            stem = strip(stem, 3);
+        } else if (stem.length() > 5 && stem.endsWith("ed")) {
+            stem = strip(stem, 2);
+        }
+
+        // Plurales: luces → luz, motores → motor, baterias → bateria, wheels → wheel
+        if (stem.length() > 4 && stem.endsWith("ces")) {
+            stem = strip(stem, 3) + "z";
+        } else if (stem.length() > 4 && stem.endsWith("ies")) {
+            stem = strip(stem, 3) + "y";
+        } else if (stem.length() > 4 && stem.endsWith("es")) {
+            stem = strip(stem, 2);
+        } else if (stem.length() > 3 && stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us") && !stem.endsWith("is")) {
+            stem = strip(stem, 1);
+        }
+
+        // Género y vocal final: rojo, roja → roj; coche → coch
+        char last = stem.charAt(stem.length() - 1);
+        if (stem.length() > 3 && (last == 'a' || last == 'o' || last == 'e')) {
+            stem = strip(stem, 1);
+        }
+        return stem;
+    }
+
+    private static String strip(String word, int suffixLength) {
+        return word.substring(0, word.length() - suffixLength);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.MyCars.services;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para los índices en memoria: sin tildes ni diacríticos y en minúsculas,
+ * de modo que "Citroën", "citroen" y "CITROEN" coincidan.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+
+    private TextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    // Para matrículas: además se quitan espacios y guiones ("1234-ABC" → "1234abc")
+    public static String foldCompact(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll("");
+    }
+}
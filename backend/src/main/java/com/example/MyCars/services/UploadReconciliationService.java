@@ -0,0 +1,337 @@
+package com.example.MyCars.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.dto.PhotoFileRef;
+import com.example.MyCars.dto.UploadReconciliationReport;
+import com.example.MyCars.events.CarPhotosChangedEvent;
+import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.services.PhotoStorage.Area;
+import com.example.MyCars.services.PhotoStorage.StoredFile;
+
+/**
+ * Reconciliación periódica del {@link PhotoStorage} con la tabla de fotos, en un hilo de fondo.
+ * <ul>
+ *   <li>Las fotos cuyo fichero no está en el almacén se marcan con {@code fileMissing}; si el
+ *       fichero está en cuarentena, se devuelve a su sitio.</li>
+ *   <li>Los ficheros que no usa ninguna foto (originales, variantes y precomprimidos) pasan a
+ *       cuarentena y se borran cuando ha vencido su plazo.</li>
+ *   <li>Los temporales de subidas abandonadas se borran directamente.</li>
+ * </ul>
+ * Solo se tocan ficheros con cierta antigüedad, y la decisión final de retirar un huérfano se
+ * toma con los bloqueos de contenido de {@link CarPhotoService} tomados: una subida que
+ * reutiliza un fichero por su hash no puede cruzarse con su traslado a cuarentena.
+ */
+@Service
+public class UploadReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadReconciliationService.class);
+
+    // Temporales de PhotoStreamWriter y de PhotoVariantService
+    private static final String TEMP_GLOB = "{.upload-,.variant-}*.tmp";
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    // Ficheros más recientes que esto pueden ser de una subida aún sin confirmar
+    @Value("${app.uploads.reconcile.grace-ms:3600000}")
+    private long graceMillis;
+
+    @Value("${app.uploads.reconcile.quarantine-ms:604800000}")
+    private long quarantineMillis;
+
+    // Huérfanos que se comprueban en cada consulta IN y con cada toma de los bloqueos
+    @Value("${app.uploads.reconcile.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    @Autowired
+    private CarPhotoService carPhotoService;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile UploadReconciliationReport lastReport;
+
+    @Scheduled(initialDelayString = "${app.uploads.reconcile.interval-ms:3600000}", fixedDelayString = "${app.uploads.reconcile.interval-ms:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Lanza una reconciliación en un hilo virtual. Devuelve false si ya hay una en curso.
+     */
+    public boolean startReconciliation() {
+        if (running.get()) {
+            return false;
+        }
+        Thread.ofVirtual().name("upload-reconciliation").start(this::reconcile);
+        return true;
+    }
+
+    // Null si ya había otra en curso
+    public UploadReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            UploadReconciliationReport report = run();
+            lastReport = report;
+            if (report.missingFiles() > 0 || report.quarantinedFiles() > 0 || report.deletedFiles() > 0) {
+                log.info("Reconciliación de subidas: {}", report);
+            }
+            return report;
+        } catch (IOException | RuntimeException e) {
+            log.error("La reconciliación de subidas ha fallado", e);
+            return null;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public UploadReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private UploadReconciliationReport run() throws IOException {
+        Instant startedAt = Instant.now();
+        Counters counters = new Counters();
+
+        Set<String> referenced = checkPhotoRows(counters);
+        sweepUploads(referenced, counters);
+        purgeQuarantine(counters);
+        long cutoff = System.currentTimeMillis() - graceMillis;
+        deleteStaleTemps(photoStorage.stagingDirectory(), cutoff, counters);
+        // Temporales de antes de que las subidas se preparasen en el directorio de staging
+        deleteStaleTemps(Paths.get(uploadDir).toAbsolutePath().normalize(), cutoff, counters);
+
+        return new UploadReconciliationReport(startedAt, Instant.now(), counters.photoRows, counters.missingFiles,
+                counters.restoredFiles, counters.scannedFiles, counters.quarantinedFiles, counters.quarantinedBytes,
+                counters.deletedFiles, counters.deletedTempFiles, counters.freedBytes);
+    }
+
+    /**
+     * Recorre las fotos por tramos: devuelve las raíces de nombre en uso y actualiza fileMissing.
+     * Cada tramo es una consulta corta; las comprobaciones en el almacén (peticiones HEAD y copias
+     * en S3) se hacen después, sin transacción ni permiso del bulkhead.
+     */
+    private Set<String> checkPhotoRows(Counters counters) {
+        Set<String> referenced = new HashSet<>();
+        List<PhotoFileRef> nowMissing = new ArrayList<>();
+        List<PhotoFileRef> nowPresent = new ArrayList<>();
+        long afterId = 0;
+        List<PhotoFileRef> photos;
+        do {
+            photos = carPhotoRepository.findFileRefs(afterId, Limit.of(batchSize));
+            for (PhotoFileRef photo : photos) {
+                counters.photoRows++;
+                String fileName = PhotoFileNames.fileNameOf(photo.url());
+                referenced.add(PhotoFileNames.stemOf(fileName));
+                boolean missing = !present(fileName, counters);
+                if (missing) {
+                    counters.missingFiles++;
+                }
+                if (missing != Boolean.TRUE.equals(photo.fileMissing())) {
+                    (missing ? nowMissing : nowPresent).add(photo);
+                }
+                afterId = photo.id();
+            }
+        } while (photos.size() == batchSize);
+        updateFileMissing(nowMissing, true);
+        updateFileMissing(nowPresent, false);
+        return referenced;
+    }
+
+    private boolean present(String fileName, Counters counters) {
+        try {
+            if (photoStorage.exists(fileName)) {
+                return true;
+            }
+            // Retirado por error (p. ej. la fila apareció tras la comprobación): vuelve a su sitio
+            if (photoStorage.restore(fileName)) {
+                counters.restoredFiles++;
+                return true;
+            }
+            return false;
+        } catch (IllegalArgumentException e) {
+            // URL que no corresponde a ningún nombre válido del almacén
+            return false;
+        } catch (IOException e) {
+            log.warn("No se pudo comprobar {} en el almacén de fotos: {}", fileName, e.getMessage());
+            return false;
+        }
+    }
+
+    // fileMissing sale en las fotos de GET /cars/{id}: cada vehículo afectado cambia de ETag al confirmar
+    private void updateFileMissing(List<PhotoFileRef> photos, boolean missing) {
+        for (int from = 0; from < photos.size(); from += batchSize) {
+            List<PhotoFileRef> batch = photos.subList(from, Math.min(photos.size(), from + batchSize));
+            databaseBulkhead.call(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                int updated = carPhotoRepository.updateFileMissing(batch.stream().map(PhotoFileRef::id).toList(), missing);
+                batch.stream().map(PhotoFileRef::carId).distinct()
+                        .forEach(carId -> eventPublisher.publishEvent(new CarPhotosChangedEvent(carId)));
+                return updated;
+            }));
+        }
+    }
+
+    private void sweepUploads(Set<String> referenced, Counters counters) throws IOException {
+        Instant cutoff = Instant.now().minusMillis(graceMillis);
+        Map<String, List<StoredFile>> orphans = new LinkedHashMap<>();
+        photoStorage.list(Area.PHOTOS, file -> {
+            // Los temporales y ocultos no son fotos; los temporales se limpian aparte
+            if (file.name().startsWith(".")) {
+                return;
+            }
+            counters.scannedFiles++;
+            if (file.lastModified().isAfter(cutoff)) {
+                return;
+            }
+            String stem = PhotoFileNames.stemOf(file.name());
+            if (!referenced.contains(stem)) {
+                orphans.computeIfAbsent(stem, key -> new ArrayList<>()).add(file);
+                if (orphans.size() >= batchSize) {
+                    quarantine(orphans, counters);
+                    orphans.clear();
+                }
+            }
+        });
+        if (!orphans.isEmpty()) {
+            quarantine(orphans, counters);
+        }
+    }
+
+    // Comprobación definitiva con una consulta IN por lote, con las subidas detenidas mientras dura
+    private void quarantine(Map<String, List<StoredFile>> orphans, Counters counters) {
+        Set<String> urls = new HashSet<>();
+        Set<String> hashes = new HashSet<>();
+        orphans.forEach((stem, files) -> {
+            files.forEach(file -> urls.add(PhotoFileNames.urlOf(file.name())));
+            if (PhotoFileNames.isContentHash(stem)) {
+                hashes.add(stem);
+            }
+        });
+        // Las listas vacías no son válidas en un IN
+        hashes.add("");
+
+        carPhotoService.withAllContentLocks(() -> {
+            Set<String> stillReferenced = new HashSet<>();
+            databaseBulkhead.call(() -> carPhotoRepository.findUrlsReferencing(urls, hashes))
+                    .forEach(url -> stillReferenced.add(PhotoFileNames.stemOf(PhotoFileNames.fileNameOf(url))));
+            orphans.forEach((stem, files) -> {
+                if (stillReferenced.contains(stem)) {
+                    return;
+                }
+                for (StoredFile file : files) {
+                    moveToQuarantine(file, counters);
+                }
+            });
+        });
+    }
+
+    private void moveToQuarantine(StoredFile file, Counters counters) {
+        try {
+            // False si se borró entre el recorrido y el traslado
+            if (photoStorage.quarantine(file.name())) {
+                counters.quarantinedFiles++;
+                counters.quarantinedBytes += file.size();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("No se pudo mover {} a cuarentena: {}", file.name(), e.getMessage());
+        }
+    }
+
+    private void purgeQuarantine(Counters counters) throws IOException {
+        Instant cutoff = Instant.now().minusMillis(quarantineMillis);
+        photoStorage.list(Area.QUARANTINE, file -> {
+            if (!file.lastModified().isBefore(cutoff)) {
+                return;
+            }
+            try {
+                if (photoStorage.deleteQuarantined(file.name())) {
+                    counters.deletedFiles++;
+                    counters.freedBytes += file.size();
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("No se pudo borrar {} de la cuarentena: {}", file.name(), e.getMessage());
+            }
+        });
+    }
+
+    // Subidas y variantes abandonadas: el temporal no lo sirve ni lo reutiliza nadie
+    private void deleteStaleTemps(Path directory, long cutoff, Counters counters) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, TEMP_GLOB)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() <= cutoff && Files.deleteIfExists(file)) {
+                    counters.deletedTempFiles++;
+                    counters.freedBytes += attributes.size();
+                }
+            }
+        }
+    }
+
+    private static final class Counters {
+        long photoRows;
+        long missingFiles;
+        long restoredFiles;
+        long scannedFiles;
+        long quarantinedFiles;
+        long quarantinedBytes;
+        long deletedFiles;
+        long deletedTempFiles;
+        long freedBytes;
+    }
+}
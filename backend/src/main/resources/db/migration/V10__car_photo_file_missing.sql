@@ -0,0 +1,2 @@
+-- Marca las fotos cuyo fichero no está en el directorio de subidas (la pone la reconciliación periódica)
+ALTER TABLE car_photos ADD COLUMN IF NOT EXISTS file_missing BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,6 @@
+-- En las bases de datos donde ddl-auto creó updated_at antes que V4, la columna quedó sin valor
+-- por defecto y con NULL en los vehículos existentes, que la exportación incremental nunca
+-- devolvía. Se rellenan con la hora de la migración: entran una vez en la siguiente exportación
+UPDATE cars SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;
+ALTER TABLE cars ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE cars ALTER COLUMN updated_at SET NOT NULL;
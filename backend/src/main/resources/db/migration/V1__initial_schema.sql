@@ -23,7 +23,7 @@ CREATE TABLE IF NOT EXISTS cars (
     expedition_year INTEGER NOT NULL,
     mileage INTEGER NOT NULL,
     selling_price DECIMAL(10,2) NOT NULL,
-    status VARCHAR(20) NOT NULL,
+    status SMALLINT NOT NULL,
     description TEXT,
     created_on DATE NOT NULL,
     CONSTRAINT fk_car_model FOREIGN KEY (model_id) REFERENCES models(id)
@@ -0,0 +1,10 @@
+-- Índices para la búsqueda paginada por keyset (columna de ordenación + id)
+CREATE INDEX IF NOT EXISTS idx_cars_selling_price_id ON cars (selling_price, id);
+CREATE INDEX IF NOT EXISTS idx_cars_expedition_year_id ON cars (expedition_year, id);
+CREATE INDEX IF NOT EXISTS idx_cars_mileage_id ON cars (mileage, id);
+CREATE INDEX IF NOT EXISTS idx_cars_created_on_id ON cars (created_on, id);
+
+-- Índices para los filtros más habituales
+CREATE INDEX IF NOT EXISTS idx_cars_status_id ON cars (status, id);
+CREATE INDEX IF NOT EXISTS idx_cars_model_id ON cars (model_id, id);
+CREATE INDEX IF NOT EXISTS idx_models_brand_id ON models (brand_id);
@@ -0,0 +1,3 @@
+-- Marca de última modificación para exportaciones incrementales
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_cars_updated_at_id ON cars (updated_at, id);
@@ -0,0 +1,2 @@
+-- Indica si ya se generaron las variantes de tamaño (miniatura, tarjeta, detalle)
+ALTER TABLE car_photos ADD COLUMN IF NOT EXISTS variants_ready BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,5 @@
+-- Almacenamiento direccionado por contenido: SHA-256 del fichero (NULL en fotos antiguas)
+ALTER TABLE car_photos ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- Varias fotos pueden compartir fichero; el recuento de referencias se hace por URL
+CREATE INDEX IF NOT EXISTS idx_car_photos_url ON car_photos (url);
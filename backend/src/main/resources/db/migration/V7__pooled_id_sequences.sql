@@ -0,0 +1,6 @@
+-- Los ids pasan de IDENTITY a secuencias con optimizador pooled (reserva de 50 en 50),
+-- lo que permite a Hibernate agrupar los INSERT en lotes JDBC
+ALTER SEQUENCE brands_id_seq INCREMENT BY 50;
+ALTER SEQUENCE models_id_seq INCREMENT BY 50;
+ALTER SEQUENCE cars_id_seq INCREMENT BY 50;
+ALTER SEQUENCE car_photos_id_seq INCREMENT BY 50;
@@ -0,0 +1,21 @@
+-- Orden de las fotos dentro de cada vehículo: la principal primero y después por antigüedad
+ALTER TABLE car_photos ADD COLUMN IF NOT EXISTS position INTEGER;
+
+UPDATE car_photos p
+SET position = ordered.rn - 1
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY car_id ORDER BY is_main DESC NULLS LAST, id) AS rn
+    FROM car_photos
+) ordered
+WHERE p.id = ordered.id AND p.position IS NULL;
+
+-- Si algún vehículo quedó con varias fotos principales, se conserva la más antigua
+UPDATE car_photos p
+SET is_main = false
+WHERE p.is_main
+  AND EXISTS (SELECT 1 FROM car_photos o WHERE o.car_id = p.car_id AND o.is_main AND o.id < p.id);
+
+-- Como mucho una foto principal por vehículo
+CREATE UNIQUE INDEX IF NOT EXISTS uq_car_photos_main ON car_photos (car_id) WHERE is_main;
+
+CREATE INDEX IF NOT EXISTS idx_car_photos_car_position ON car_photos (car_id, position, id);
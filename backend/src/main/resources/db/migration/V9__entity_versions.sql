@@ -0,0 +1,8 @@
+-- Versión para bloqueo optimista y ETags, y marca de última modificación en marcas y modelos
+ALTER TABLE brands ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE brands ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE models ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE models ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
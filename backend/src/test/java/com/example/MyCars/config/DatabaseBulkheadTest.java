@@ -0,0 +1,127 @@
+package com.example.MyCars.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DatabaseBulkheadTest {
+
+    // Libera al hilo que ocupa el permiso si una prueba falla a medias
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void releaseHolder() {
+        release.countDown();
+    }
+
+    @Test
+    void permitIsReleasedAfterWork() {
+        DatabaseBulkhead bulkhead = bulkhead(2, 10, 1000);
+
+        assertThat(bulkhead.call(() -> bulkhead.stats().inUse())).isEqualTo(1);
+        assertThat(bulkhead.stats().inUse()).isZero();
+        assertThat(bulkhead.stats().acquired()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReleasedWhenWorkFails() {
+        DatabaseBulkhead bulkhead = bulkhead(1, 10, 1000);
+
+        assertThatThrownBy(() -> bulkhead.call(() -> {
+            throw new IllegalStateException("fallo");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(bulkhead.stats().available()).isEqualTo(1);
+    }
+
+    // Con un solo permiso, una llamada anidada no espera por el permiso que ya tiene su hilo
+    @Test
+    void nestedCallReusesThePermit() {
+        DatabaseBulkhead bulkhead = bulkhead(1, 0, 50);
+
+        assertThat(bulkhead.call(() -> bulkhead.call(() -> "anidada"))).isEqualTo("anidada");
+        assertThat(bulkhead.stats().acquired()).isEqualTo(1);
+    }
+
+    @Test
+    void waiterGetsThePermitWhenItIsReleased() throws Exception {
+        DatabaseBulkhead bulkhead = bulkhead(1, 10, 5000);
+        holdPermit(bulkhead);
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> "atendida"));
+        awaitQueued(bulkhead, 1);
+        release.countDown();
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("atendida");
+        assertThat(bulkhead.stats().peakQueueDepth()).isEqualTo(1);
+        assertThat(bulkhead.stats().rejected()).isZero();
+    }
+
+    @Test
+    void waiterIsRejectedAfterTimeout() {
+        DatabaseBulkhead bulkhead = bulkhead(1, 10, 50);
+        holdPermit(bulkhead);
+
+        assertThatThrownBy(() -> bulkhead.call(() -> "nunca"))
+                .isInstanceOfSatisfying(BulkheadFullException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(3));
+        assertThat(bulkhead.stats().rejected()).isEqualTo(1);
+        assertThat(bulkhead.stats().queueDepth()).isZero();
+    }
+
+    // Con la cola llena se rechaza en el acto, sin esperar el tiempo máximo
+    @Test
+    void callBeyondTheQueueIsRejectedImmediately() throws Exception {
+        DatabaseBulkhead bulkhead = bulkhead(1, 1, 10_000);
+        holdPermit(bulkhead);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> "en cola"));
+        awaitQueued(bulkhead, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> bulkhead.call(() -> "sobra"))
+                .isInstanceOfSatisfying(BulkheadFullException.class, e -> assertThat(e.getQueueDepth()).isEqualTo(2));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("en cola");
+        assertThat(bulkhead.stats().rejected()).isEqualTo(1);
+    }
+
+    private static DatabaseBulkhead bulkhead(int permits, int maxQueue, long timeoutMillis) {
+        return new DatabaseBulkhead(permits, maxQueue, timeoutMillis, 3, new SimpleMeterRegistry());
+    }
+
+    // Ocupa el único permiso desde otro hilo hasta que la prueba lo suelta
+    private void holdPermit(DatabaseBulkhead bulkhead) {
+        CountDownLatch held = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> bulkhead.call(() -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        try {
+            assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitQueued(DatabaseBulkhead bulkhead, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.stats().queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bulkhead.stats().queueDepth()).isEqualTo(depth);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.MyCars.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.MyCars.controllers.BrandController;
+import com.example.MyCars.services.CatalogService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Los ajustes de actuator de application.properties, con puertos libres para la prueba; sin
+// @AutoConfigureObservability los tests de Spring Boot no exportan las métricas a Prometheus
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "management.server.port=0",
+    "management.endpoints.web.exposure.include=health,info,metrics,prometheus"
+})
+class MetricsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private BrandController brandController;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void customMetersAreRegistered() {
+        catalogService.getSnapshot();
+
+        assertThat(meterRegistry.find("mycars.method")
+                .tags("layer", "service", "class", "CatalogService", "method", "getSnapshot", "exception", "none")
+                .timer()).isNotNull();
+        assertThat(meterRegistry.find("mycars.db.bulkhead.permits").gauge()).isNotNull();
+        assertThat(meterRegistry.find("mycars.db.bulkhead.in.use").gauge()).isNotNull();
+        assertThat(meterRegistry.find("mycars.db.bulkhead.rejected").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("mycars.cars.events.subscribers").gauge()).isNotNull();
+        assertThat(meterRegistry.find("executor.active").tag("name", "photo-variants").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections").gauge()).isNotNull();
+    }
+
+    // La latencia de los controladores la da http.server.requests; no se les pone un proxy para medirlos otra vez
+    @Test
+    void controllersAreTimedOnlyByHttpMetrics() {
+        assertThat(restTemplate.getForEntity("/brands", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(AopUtils.isAopProxy(brandController)).isFalse();
+        assertThat(meterRegistry.find("mycars.method").tag("layer", "controller").timers()).isEmpty();
+        assertThat(meterRegistry.find("http.server.requests").tag("uri", "/brands").timer()).isNotNull();
+    }
+
+    @Test
+    void actuatorIsServedOnlyOnTheManagementPort() {
+        ResponseEntity<String> scrape = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(scrape.getBody()).contains("mycars_db_bulkhead_permits", "mycars_method_seconds_count");
+        assertThat(restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.MyCars.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CarControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private CarModel car;
+
+    @BeforeEach
+    void createCar() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+
+        car = new CarModel();
+        car.setLicensePlate("P-" + suffix);
+        car.setModel(model);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setColor("verde");
+        car.setExpeditionYear(2017);
+        car.setMileage(70000);
+        car.setSellingPrice(BigDecimal.valueOf(9000));
+        car.setDescription("Un solo dueño");
+        car.setCreatedOn(LocalDate.now());
+        car = carRepository.save(car);
+    }
+
+    @AfterEach
+    void deleteCar() {
+        carRepository.deleteById(car.getId());
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+    }
+
+    // Las columnas NOT NULL no se pueden vaciar: es un cuerpo inválido (400), no un conflicto
+    @Test
+    void patchingRequiredFieldToNullIsABadRequest() throws Exception {
+        for (String field : new String[] {"status", "color", "expeditionYear", "mileage", "sellingPrice"}) {
+            patchCar("{\"" + field + "\": null}").andExpect(status().isBadRequest());
+        }
+        assertThat(carRepository.findById(car.getId()).orElseThrow().getVersion()).isEqualTo(car.getVersion());
+    }
+
+    @Test
+    void patchingDescriptionToNullClearsIt() throws Exception {
+        patchCar("{\"description\": null}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").doesNotExist())
+                .andExpect(jsonPath("$.color").value("verde"));
+    }
+
+    private ResultActions patchCar(String body) throws Exception {
+        return mockMvc.perform(patch("/cars/{id}", car.getId())
+                .contentType("application/merge-patch+json")
+                .content(body));
+    }
+}
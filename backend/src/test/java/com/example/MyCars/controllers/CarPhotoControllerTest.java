@@ -0,0 +1,173 @@
+package com.example.MyCars.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+import com.example.MyCars.services.CarPhotoService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CarPhotoControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CarPhotoService carPhotoService;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private CarModel car;
+    private final List<CarPhotoModel> photos = new ArrayList<>();
+
+    @BeforeEach
+    void createCarWithPhotos() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+
+        car = new CarModel();
+        car.setLicensePlate("T-" + suffix);
+        car.setModel(model);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setColor("rojo");
+        car.setExpeditionYear(2020);
+        car.setMileage(1000);
+        car.setSellingPrice(BigDecimal.valueOf(10000));
+        car.setCreatedOn(LocalDate.now());
+        car = carRepository.save(car);
+
+        for (int i = 0; i < 3; i++) {
+            CarPhotoModel photo = new CarPhotoModel();
+            photo.setCar(car);
+            photo.setUrl("/uploads/cars/test-" + suffix + "-" + i + ".jpg");
+            photo.setIsMain(i == 0);
+            photo.setPosition(i);
+            photo.setVariantsReady(false);
+            photo.setFileMissing(false);
+            photos.add(carPhotoRepository.save(photo));
+        }
+    }
+
+    @AfterEach
+    void deleteCar() {
+        photos.forEach(photo -> carPhotoRepository.deleteById(photo.getId()));
+        carRepository.deleteById(car.getId());
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+    }
+
+    @Test
+    void setMainPhotoSwitchesMainPhoto() {
+        ResponseEntity<String> response = switchMainPhoto(photos.get(1).getId());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(mainPhotoIds()).containsExactly(photos.get(1).getId());
+    }
+
+    // El primer cambio queda sin confirmar hasta que el segundo está esperando por sus filas
+    @Test
+    void concurrentMainPhotoSwitchesLeaveOneMainPhoto() throws Exception {
+        Long first = photos.get(1).getId();
+        Long second = photos.get(2).getId();
+
+        CompletableFuture<ResponseEntity<String>> concurrent = new TransactionTemplate(transactionManager).execute(status -> {
+            carPhotoService.setMainPhoto(car.getId(), first);
+            CompletableFuture<ResponseEntity<String>> request = CompletableFuture.supplyAsync(() -> switchMainPhoto(second));
+            awaitLockWait();
+            return request;
+        });
+
+        assertThat(concurrent.get(30, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(mainPhotoIds()).containsExactly(first);
+    }
+
+    private ResponseEntity<String> switchMainPhoto(Long photoId) {
+        return restTemplate.exchange("/api/cars/{carId}/photos/{photoId}/main", HttpMethod.PUT, null, String.class,
+                car.getId(), photoId);
+    }
+
+    private List<Long> mainPhotoIds() {
+        return carPhotoRepository.findByCarIdOrderByPositionAscIdAsc(car.getId()).stream()
+                .filter(photo -> Boolean.TRUE.equals(photo.getIsMain()))
+                .map(CarPhotoModel::getId)
+                .toList();
+    }
+
+    // Conexión aparte de la transacción en curso: pg_stat_activity se congela dentro de una transacción
+    private void awaitLockWait() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            while (System.nanoTime() < deadline) {
+                try (ResultSet waiting = statement.executeQuery("SELECT count(*) FROM pg_stat_activity"
+                        + " WHERE datname = current_database() AND wait_event_type = 'Lock'")) {
+                    waiting.next();
+                    if (waiting.getInt(1) > 0) {
+                        return;
+                    }
+                }
+                Thread.sleep(50);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        fail("El segundo cambio de foto principal no llegó a esperar al primero");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.MyCars.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.MyCars.services.PhotoStorage;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PhotoFileControllerTest {
+
+    private static final String CONTENT = "abcdefghij";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    private String fileName;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        fileName = "range-" + UUID.randomUUID() + ".jpg";
+        Path source = Files.createTempFile(photoStorage.stagingDirectory(), "range", ".tmp");
+        Files.writeString(source, CONTENT, StandardCharsets.US_ASCII);
+        photoStorage.store(fileName, source);
+    }
+
+    @AfterEach
+    void deleteFile() throws Exception {
+        photoStorage.delete(fileName);
+    }
+
+    @Test
+    void singleRangeIsServedPartially() {
+        ResponseEntity<String> response = get("bytes=2-4");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-4/10");
+        assertThat(response.getBody()).isEqualTo("cde");
+    }
+
+    // Posiciones que no caben en un long: mayores que el fichero, no un error del servidor
+    @Test
+    void oversizedFirstPositionIsNotSatisfiable() {
+        ResponseEntity<String> response = get("bytes=99999999999999999999-");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void oversizedLastPositionOrSuffixReachesTheEnd() {
+        ResponseEntity<String> toEnd = get("bytes=3-99999999999999999999");
+        ResponseEntity<String> suffix = get("bytes=-99999999999999999999");
+
+        assertThat(toEnd.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(toEnd.getBody()).isEqualTo(CONTENT.substring(3));
+        assertThat(suffix.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(suffix.getBody()).isEqualTo(CONTENT);
+    }
+
+    private ResponseEntity<String> get(String range) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, range);
+        return restTemplate.exchange("/uploads/cars/{fileName}", HttpMethod.GET, new HttpEntity<>(headers), String.class,
+                fileName);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.MyCars.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class CarSearchCursorTest {
+
+    @Test
+    void roundTripKeepsSortDirectionValueAndId() {
+        CarSearchCursor[] cursors = {
+            new CarSearchCursor(CarSortField.ID, false, 42L, 42L),
+            new CarSearchCursor(CarSortField.PRICE, true, new BigDecimal("15990.50"), 7L),
+            new CarSearchCursor(CarSortField.YEAR, false, 2019, 8L),
+            new CarSearchCursor(CarSortField.MILEAGE, true, 120000, 9L),
+            new CarSearchCursor(CarSortField.CREATED, false, LocalDate.of(2024, 2, 29), 10L)
+        };
+        for (CarSearchCursor cursor : cursors) {
+            assertThat(CarSearchCursor.decode(cursor.encode())).isEqualTo(cursor);
+        }
+    }
+
+    // La escala del precio forma parte del valor: 100.50 no debe volver como 100.5
+    @Test
+    void priceKeepsItsScale() {
+        CarSearchCursor cursor = new CarSearchCursor(CarSortField.PRICE, false, new BigDecimal("100.50"), 1L);
+
+        assertThat(((BigDecimal) CarSearchCursor.decode(cursor.encode()).value()).scale()).isEqualTo(2);
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = new CarSearchCursor(CarSortField.PRICE, true, new BigDecimal("99999999.99"), Long.MAX_VALUE).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String[] malformed = {
+            "%%%",
+            raw("PRICE|A|100"),
+            raw("COLOR|A|rojo|1"),
+            raw("YEAR|A|dos mil|1"),
+            raw("CREATED|D|2024-13-01|1"),
+            raw("MILEAGE|A|10|uno")
+        };
+        for (String cursor : malformed) {
+            assertThatThrownBy(() -> CarSearchCursor.decode(cursor))
+                    .as(cursor)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
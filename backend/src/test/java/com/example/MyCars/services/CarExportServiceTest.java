@@ -0,0 +1,138 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MyCars.config.DatabaseBulkhead;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.ModelRepository;
+
+// Tramos de dos vehículos para recorrer varios con pocos datos
+@SpringBootTest(properties = "app.cars.export.chunk-size=2")
+class CarExportServiceTest {
+
+    @Autowired
+    private CarExportService carExportService;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private String licensePlate;
+    private final List<Long> carIds = new ArrayList<>();
+
+    @BeforeEach
+    void createModel() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+        licensePlate = "E-" + suffix;
+    }
+
+    @AfterEach
+    void deleteCar() {
+        carIds.forEach(id -> jdbcTemplate.update("DELETE FROM cars WHERE id = ?", id));
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+    }
+
+    // Un vehículo escrito sin pasar por Hibernate (importación SQL, otra aplicación) recibe updated_at por defecto
+    @Test
+    void carInsertedWithoutUpdatedAtIsExportedIncrementally() throws Exception {
+        Instant since = Instant.now().minus(1, ChronoUnit.MINUTES);
+        Long carId = insertCar(licensePlate);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_at IS NOT NULL FROM cars WHERE id = ?", Boolean.class, carId))
+                .isTrue();
+        assertThat(export(since)).contains("\"" + licensePlate + "\"");
+        assertThat(export(Instant.now().plus(1, ChronoUnit.MINUTES))).doesNotContain("\"" + licensePlate + "\"");
+    }
+
+    // Cada vehículo sale una vez y en orden de id aunque la exportación recorra varios tramos
+    @Test
+    void exportWalksEveryChunkOnce() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            insertCar(licensePlate + "-" + i);
+        }
+
+        String exported = export(null);
+
+        int previous = -1;
+        for (int i = 0; i < 5; i++) {
+            String plate = "\"" + licensePlate + "-" + i + "\"";
+            assertThat(exported.indexOf(plate)).isGreaterThan(previous).isEqualTo(exported.lastIndexOf(plate));
+            previous = exported.indexOf(plate);
+        }
+    }
+
+    // Lo escrito al cliente no retiene permiso del bulkhead ni conexión: se escribe entre consultas
+    @Test
+    void exportWritesWithoutHoldingADatabasePermit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            insertCar(licensePlate + "-" + i);
+        }
+        List<Integer> permitsInUse = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                permitsInUse.add(databaseBulkhead.stats().inUse());
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                permitsInUse.add(databaseBulkhead.stats().inUse());
+            }
+        };
+
+        assertThat(carExportService.exportNdjson(null, out)).isGreaterThanOrEqualTo(3);
+        assertThat(permitsInUse).isNotEmpty().containsOnly(0);
+    }
+
+    private Long insertCar(String plate) {
+        Long id = jdbcTemplate.queryForObject("SELECT nextval('cars_id_seq')", Long.class);
+        jdbcTemplate.update("INSERT INTO cars (id, license_plate, model_id, status, color, expedition_year, mileage,"
+                + " selling_price, created_on, version) VALUES (?, ?, ?, 0, 'blanco', 2015, 90000, 5000, CURRENT_DATE, 0)",
+                id, plate, model.getId());
+        carIds.add(id);
+        return id;
+    }
+
+    private String export(Instant since) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        carExportService.exportNdjson(since, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
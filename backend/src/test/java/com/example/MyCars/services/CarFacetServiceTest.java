@@ -0,0 +1,171 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MyCars.dto.CarFacetQuery;
+import com.example.MyCars.dto.CarFacetResult;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+
+@SpringBootTest
+class CarFacetServiceTest {
+
+    @Autowired
+    private CarFacetService carFacetService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BrandModel brand;
+    private BrandModel otherBrand;
+    private ModelModel first;
+    private ModelModel second;
+    private ModelModel other;
+    private final List<CarModel> cars = new ArrayList<>();
+
+    @BeforeEach
+    void createCars() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = saveBrand("Marca " + suffix);
+        otherBrand = saveBrand("Otra " + suffix);
+        first = saveModel("Primero " + suffix, brand);
+        second = saveModel("Segundo " + suffix, brand);
+        other = saveModel("Otro " + suffix, otherBrand);
+
+        createCar(first, CarStatus.AVAILABLE, 2018, 8000);
+        createCar(first, CarStatus.SOLD, 2019, 15000);
+        createCar(second, CarStatus.AVAILABLE, 2020, 25000);
+        createCar(second, CarStatus.RESERVED, 2020, 26000);
+        createCar(other, CarStatus.AVAILABLE, 2018, 9000);
+    }
+
+    @AfterEach
+    void deleteCars() {
+        cars.forEach(car -> carService.deleteCar(car.getId()));
+        List.of(first, second, other).forEach(model -> modelService.deleteModel(model.getId()));
+        List.of(brand, otherBrand).forEach(saved -> brandService.deleteBrand(saved.getId()));
+    }
+
+    // Cada faceta cuenta con los demás filtros pero sin el suyo: se ven las alternativas a lo elegido
+    @Test
+    void facetCountsIgnoreTheirOwnFilter() {
+        CarFacetResult result = carFacetService.search(query(List.of(CarStatus.AVAILABLE), List.of(brand.getId())));
+
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(result.ids()).containsExactly(cars.get(0).getId(), cars.get(2).getId());
+        // Estados de la marca elegida, sin filtrar por estado
+        assertThat(result.statuses()).isEqualTo(Map.of(CarStatus.AVAILABLE, 2L, CarStatus.SOLD, 1L, CarStatus.RESERVED, 1L));
+        // Marcas con vehículos disponibles, sin filtrar por marca
+        assertThat(counts(result.brands(), brand.getId(), otherBrand.getId())).isEqualTo(Map.of(brand.getId(), 2L, otherBrand.getId(), 1L));
+        // Sin filtro de modelo, los modelos se cuentan sobre el resultado
+        assertThat(counts(result.models(), first.getId(), second.getId(), other.getId()))
+                .isEqualTo(Map.of(first.getId(), 1L, second.getId(), 1L));
+        assertThat(result.years()).isEqualTo(Map.of(2018, 1L, 2020, 1L));
+        assertThat(result.priceBands()).filteredOn(band -> band.count() > 0)
+                .extracting(CarFacetResult.RangeBucket::from, CarFacetResult.RangeBucket::count)
+                .containsExactly(tuple(5_000L, 1L), tuple(20_000L, 1L));
+    }
+
+    @Test
+    void selectingSeveralValuesOfOneFacetIsAUnion() {
+        CarFacetResult result = carFacetService.search(query(List.of(CarStatus.SOLD, CarStatus.RESERVED), List.of(brand.getId())));
+
+        assertThat(result.ids()).containsExactly(cars.get(1).getId(), cars.get(3).getId());
+        assertThat(counts(result.models(), first.getId(), second.getId(), other.getId()))
+                .isEqualTo(Map.of(first.getId(), 1L, second.getId(), 1L));
+    }
+
+    // Los huecos de los vehículos borrados se reutilizan: el límite se aplica sobre los ids menores, no sobre los primeros huecos
+    @Test
+    void limitKeepsLowestIdsAfterSlotsAreReused() {
+        for (CarModel deleted : List.of(cars.get(3), cars.get(1))) {
+            carService.deleteCar(deleted.getId());
+            cars.remove(deleted);
+        }
+        createCar(first, CarStatus.AVAILABLE, 2021, 30000);
+        createCar(second, CarStatus.AVAILABLE, 2021, 31000);
+
+        CarFacetQuery query = new CarFacetQuery(List.of(CarStatus.AVAILABLE), List.of(brand.getId()),
+                null, null, null, null, null, null, null, 2);
+
+        assertThat(carFacetService.search(query).ids()).containsExactly(cars.get(0).getId(), cars.get(1).getId());
+        assertThat(carFacetService.search(query).total()).isEqualTo(4);
+    }
+
+    // Un cambio sin evento (otro nodo, SQL) no altera recuento ni ids, pero sí la suma de versiones
+    @Test
+    void periodicCheckCatchesChangesWithoutEvents() {
+        jdbcTemplate.update("UPDATE cars SET status = ?, version = version + 1 WHERE id = ?",
+                CarStatus.SOLD.ordinal(), cars.get(0).getId());
+
+        carFacetService.verify();
+
+        CarFacetResult result = carFacetService.search(query(List.of(CarStatus.AVAILABLE), List.of(brand.getId())));
+        assertThat(result.ids()).containsExactly(cars.get(2).getId());
+        assertThat(result.statuses()).containsEntry(CarStatus.SOLD, 2L);
+    }
+
+    private static CarFacetQuery query(List<CarStatus> statuses, List<Long> brandIds) {
+        return new CarFacetQuery(statuses, brandIds, null, null, null, null, null, null, null, 100);
+    }
+
+    // Solo los valores de la prueba: la base de datos puede tener otros vehículos
+    private static Map<Long, Long> counts(List<CarFacetResult.Bucket> buckets, Long... ids) {
+        Set<Long> wanted = Set.of(ids);
+        return buckets.stream()
+                .filter(bucket -> wanted.contains(bucket.id()))
+                .collect(Collectors.toMap(CarFacetResult.Bucket::id, CarFacetResult.Bucket::count));
+    }
+
+    private BrandModel saveBrand(String name) {
+        BrandModel saved = new BrandModel();
+        saved.setName(name);
+        return brandService.saveBrand(saved);
+    }
+
+    private ModelModel saveModel(String name, BrandModel owner) {
+        ModelModel saved = new ModelModel();
+        saved.setName(name);
+        saved.setBrand(owner);
+        return modelService.saveModel(saved);
+    }
+
+    private void createCar(ModelModel carModel, CarStatus status, int year, int price) {
+        CarModel car = new CarModel();
+        car.setLicensePlate("F-" + UUID.randomUUID().toString().substring(0, 8));
+        car.setModel(carModel);
+        car.setStatus(status);
+        car.setColor("negro");
+        car.setExpeditionYear(year);
+        car.setMileage(60000);
+        car.setSellingPrice(BigDecimal.valueOf(price));
+        cars.add(carService.createCar(car));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MyCars.dto.CarImportReport;
+
+@SpringBootTest
+class CarImportServiceTest {
+
+    private static final int ROWS = 120;
+
+    @Autowired
+    private CarImportService carImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String brand = "Importada " + UUID.randomUUID().toString().substring(0, 8);
+
+    @AfterEach
+    void deleteImported() {
+        jdbcTemplate.update("DELETE FROM cars WHERE model_id IN (SELECT m.id FROM models m JOIN brands b ON b.id = m.brand_id"
+                + " WHERE b.name = ?)", brand);
+        jdbcTemplate.update("DELETE FROM models WHERE brand_id IN (SELECT id FROM brands WHERE name = ?)", brand);
+        jdbcTemplate.update("DELETE FROM brands WHERE name = ?", brand);
+    }
+
+    @Test
+    void idSequencesReserveBlocksOfFifty() {
+        List<Integer> increments = jdbcTemplate.queryForList("SELECT increment_by FROM pg_sequences WHERE sequencename IN"
+                + " ('brands_id_seq', 'models_id_seq', 'cars_id_seq', 'car_photos_id_seq')", Integer.class);
+
+        assertThat(increments).containsExactly(50, 50, 50, 50);
+    }
+
+    // Con reserva de 50 en 50, 120 vehículos cuestan como mucho cuatro llamadas a nextval
+    @Test
+    void importReservesIdsInBlocks() throws Exception {
+        long before = lastCarId();
+
+        CarImportReport report = carImportService.importCars(new ByteArrayInputStream(ndjson().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.created()).isEqualTo(ROWS);
+        long nextvalCalls = (lastCarId() - before) / jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE sequencename = 'cars_id_seq'", Long.class);
+        assertThat(nextvalCalls).isLessThanOrEqualTo(4);
+    }
+
+    private long lastCarId() {
+        Long value = jdbcTemplate.queryForObject("SELECT last_value FROM pg_sequences WHERE sequencename = 'cars_id_seq'", Long.class);
+        return value != null ? value : 0;
+    }
+
+    private String ndjson() {
+        StringBuilder body = new StringBuilder();
+        String prefix = brand.substring(brand.length() - 8);
+        for (int i = 0; i < ROWS; i++) {
+            body.append("{\"licensePlate\":\"I-").append(prefix).append('-').append(i)
+                    .append("\",\"brand\":\"").append(brand)
+                    .append("\",\"model\":\"Modelo\",\"status\":\"AVAILABLE\",\"color\":\"negro\",\"expeditionYear\":2021,")
+                    .append("\"mileage\":").append(i * 100).append(",\"sellingPrice\":").append(10000 + i).append("}\n");
+        }
+        return body.toString();
+    }
+}
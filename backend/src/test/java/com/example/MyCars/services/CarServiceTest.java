@@ -0,0 +1,358 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.dto.CarPage;
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSortField;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+class CarServiceTest {
+
+    // Precio, año, kilometraje y día de alta, con valores repetidos para probar el desempate por id
+    private static final int[][] CARS = {
+        {300, 2018, 50000, 3},
+        {100, 2020, 10000, 1},
+        {200, 2018, 50000, 2},
+        {100, 2019, 30000, 1},
+        {300, 2020, 10000, 3},
+        {100, 2018, 20000, 2},
+        {200, 2021, 30000, 1}
+    };
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private final List<CarModel> cars = new ArrayList<>();
+
+    @BeforeEach
+    void createCars() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+
+        for (int i = 0; i < CARS.length; i++) {
+            CarModel car = new CarModel();
+            car.setLicensePlate("K-" + suffix + "-" + i);
+            car.setModel(model);
+            car.setStatus(CarStatus.AVAILABLE);
+            car.setColor("gris");
+            car.setSellingPrice(BigDecimal.valueOf(CARS[i][0]).setScale(2));
+            car.setExpeditionYear(CARS[i][1]);
+            car.setMileage(CARS[i][2]);
+            car.setCreatedOn(LocalDate.of(2024, 1, CARS[i][3]));
+            cars.add(carRepository.save(car));
+        }
+    }
+
+    @AfterEach
+    void deleteCars() {
+        cars.forEach(car -> carRepository.deleteById(car.getId()));
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+    }
+
+    // Recorrer todas las páginas devuelve cada vehículo una vez y en el orden de (columna, id)
+    @Test
+    void keysetPagesCoverEveryCarInOrder() {
+        for (CarSortField sort : CarSortField.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                List<Long> expected = expectedOrder(sort, descending);
+                for (int limit = 1; limit <= CARS.length + 1; limit++) {
+                    assertThat(allPages(sort, descending, limit))
+                            .as("%s %s, %d por página", sort, descending ? "desc" : "asc", limit)
+                            .containsExactlyElementsOf(expected);
+                }
+            }
+        }
+    }
+
+    // Si la última página se llena justo, no se anuncia una página siguiente vacía
+    @Test
+    void fullLastPageHasNoNextCursor() {
+        CarPage<CarSummary> first = carService.searchCars(criteria(CarSortField.PRICE, false), null, CARS.length);
+
+        assertThat(first.items()).hasSize(CARS.length);
+        assertThat(first.nextCursor()).isNull();
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String cursor = carService.searchCars(criteria(CarSortField.PRICE, false), null, 2).nextCursor();
+
+        assertThatThrownBy(() -> carService.searchCars(criteria(CarSortField.YEAR, false), cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> carService.searchCars(criteria(CarSortField.PRICE, true), cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Con dos fotos principales en un vehículo (datos anteriores a V8) cada página sigue trayendo cada vehículo una vez
+    @Test
+    void duplicateMainPhotosDoNotShortenPages() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Se deshace con la transacción: el índice vuelve a existir al terminar
+            jdbcTemplate.execute("DROP INDEX uq_car_photos_main");
+            for (CarModel car : cars) {
+                for (int i = 0; i < 2; i++) {
+                    jdbcTemplate.update("INSERT INTO car_photos (car_id, url, is_main, position) VALUES (?, ?, true, ?)",
+                            car.getId(), "/uploads/cars/dup-" + car.getId() + "-" + i + ".jpg", i);
+                }
+            }
+
+            CarPage<CarSummary> first = carService.searchCars(criteria(CarSortField.PRICE, false), null, 3);
+            assertThat(first.items()).hasSize(3);
+            assertThat(first.nextCursor()).isNotNull();
+            assertThat(first.items()).allSatisfy(item -> assertThat(item.mainPhotoUrl()).endsWith("-" + item.id() + "-0.jpg"));
+            assertThat(allPages(CarSortField.PRICE, false, 3)).containsExactlyElementsOf(expectedOrder(CarSortField.PRICE, false));
+            status.setRollbackOnly();
+        });
+    }
+
+    // PUT lee el vehículo una vez: esa lectura da la imagen previa y es la entidad sobre la que se copia el cuerpo
+    @Test
+    void updateLoadsTheCarOnce() {
+        CarModel car = cars.get(0);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            CarModel updated = carService.updateCar(copyOf(car, 12345));
+
+            assertThat(statistics.getEntityStatistics(CarModel.class.getName()).getLoadCount()).isEqualTo(1);
+            assertThat(updated.getMileage()).isEqualTo(12345);
+            assertThat(updated.getVersion()).isEqualTo(car.getVersion() + 1);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    // Con una versión que ya no es la actual el cambio se rechaza en vez de pisar el ajeno
+    @Test
+    void updateWithStaleVersionIsRejected() {
+        CarModel car = cars.get(0);
+        carService.updateCar(copyOf(car, 1));
+
+        assertThatThrownBy(() -> carService.updateCar(copyOf(car, 2)))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(carRepository.findById(car.getId()).orElseThrow().getMileage()).isEqualTo(1);
+    }
+
+    @Test
+    void updateOfMissingCarReturnsNull() {
+        CarModel missing = copyOf(cars.get(0), 1);
+        missing.setId(-1L);
+
+        assertThat(carService.updateCar(missing)).isNull();
+    }
+
+    // Merge patch: solo se escriben las claves presentes y null vacía el campo
+    @Test
+    void patchWritesPresentFieldsOnly() {
+        CarModel car = cars.get(0);
+        carService.patchCar(car.getId(), Map.of("description", "Techo solar", "mileage", 777));
+        Map<String, Object> clearDescription = new HashMap<>();
+        clearDescription.put("description", null);
+
+        CarModel patched = carService.patchCar(car.getId(), clearDescription);
+
+        assertThat(patched.getDescription()).isNull();
+        assertThat(patched.getMileage()).isEqualTo(777);
+        assertThat(patched.getColor()).isEqualTo(car.getColor());
+        assertThat(patched.getSellingPrice()).isEqualByComparingTo(car.getSellingPrice());
+        assertThat(patched.getVersion()).isEqualTo(car.getVersion() + 2);
+    }
+
+    // La versión del cuerpo condiciona el UPDATE: si otro cambio se adelantó, no se pisa
+    @Test
+    void patchWithStaleVersionIsRejected() {
+        CarModel car = cars.get(0);
+        carService.patchCar(car.getId(), Map.of("mileage", 1));
+
+        assertThatThrownBy(() -> carService.patchCar(car.getId(), Map.of("mileage", 2, "version", car.getVersion())))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(carRepository.findById(car.getId()).orElseThrow().getMileage()).isEqualTo(1);
+    }
+
+    @Test
+    void patchOfRequiredFieldWithNullIsRejected() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("licensePlate", null);
+
+        assertThatThrownBy(() -> carService.patchCar(cars.get(0).getId(), body))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Dos borrados a la vez: el segundo espera por la fila, no la encuentra y no publica otro evento
+    @Test
+    void concurrentDeletesPublishOneEvent() throws Exception {
+        Long id = cars.get(0).getId();
+        long total = inventoryStatsService.getStats().total();
+
+        CompletableFuture<Boolean> second = new TransactionTemplate(transactionManager).execute(status -> {
+            assertThat(carService.deleteCar(id)).isTrue();
+            CompletableFuture<Boolean> concurrent = CompletableFuture.supplyAsync(() -> carService.deleteCar(id));
+            awaitLockWait();
+            return concurrent;
+        });
+
+        assertThat(second.get(30, TimeUnit.SECONDS)).isFalse();
+        assertThat(inventoryStatsService.getStats().total()).isEqualTo(total - 1);
+        assertThat(carRepository.findById(id)).isEmpty();
+    }
+
+    // Los índices (columna, id) de V3 los crea Flyway; sin ellos cada página recorre la tabla
+    @Test
+    void keysetIndexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'cars'", String.class);
+
+        assertThat(indexes).contains("idx_cars_selling_price_id", "idx_cars_expedition_year_id",
+                "idx_cars_mileage_id", "idx_cars_created_on_id");
+    }
+
+    // Conexión aparte de la transacción en curso: pg_stat_activity se congela dentro de una transacción
+    private void awaitLockWait() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            while (System.nanoTime() < deadline) {
+                try (ResultSet waiting = statement.executeQuery("SELECT count(*) FROM pg_stat_activity"
+                        + " WHERE datname = current_database() AND wait_event_type = 'Lock'")) {
+                    waiting.next();
+                    if (waiting.getInt(1) > 0) {
+                        return;
+                    }
+                }
+                Thread.sleep(50);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        fail("El segundo borrado no llegó a esperar al primero");
+    }
+
+    private List<Long> allPages(CarSortField sort, boolean descending, int limit) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CarPage<CarSummary> page = carService.searchCars(criteria(sort, descending), cursor, limit);
+            assertThat(page.items()).isNotEmpty();
+            page.items().forEach(car -> ids.add(car.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null && ids.size() <= CARS.length);
+        return ids;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Long> expectedOrder(CarSortField sort, boolean descending) {
+        Comparator<CarModel> order = Comparator.comparing(car -> (Comparable) sortValue(sort, car));
+        order = order.thenComparing(CarModel::getId);
+        return cars.stream()
+                .sorted(descending ? order.reversed() : order)
+                .map(CarModel::getId)
+                .toList();
+    }
+
+    private static Comparable<?> sortValue(CarSortField sort, CarModel car) {
+        return switch (sort) {
+            case ID -> car.getId();
+            case PRICE -> car.getSellingPrice();
+            case YEAR -> car.getExpeditionYear();
+            case MILEAGE -> car.getMileage();
+            case CREATED -> car.getCreatedOn();
+        };
+    }
+
+    // Cuerpo de un PUT: entidad sin gestionar, con el modelo solo por id
+    private CarModel copyOf(CarModel car, int mileage) {
+        ModelModel modelReference = new ModelModel();
+        modelReference.setId(model.getId());
+        CarModel copy = new CarModel();
+        copy.setId(car.getId());
+        copy.setLicensePlate(car.getLicensePlate());
+        copy.setModel(modelReference);
+        copy.setStatus(car.getStatus());
+        copy.setColor(car.getColor());
+        copy.setSellingPrice(car.getSellingPrice());
+        copy.setExpeditionYear(car.getExpeditionYear());
+        copy.setMileage(mileage);
+        copy.setCreatedOn(car.getCreatedOn());
+        copy.setVersion(car.getVersion());
+        return copy;
+    }
+
+    private CarSearchCriteria criteria(CarSortField sort, boolean descending) {
+        return new CarSearchCriteria(null, brand.getId(), null, null, null, null, null, null, null, sort, descending);
+    }
+}
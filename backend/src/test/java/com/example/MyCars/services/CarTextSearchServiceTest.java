@@ -0,0 +1,144 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MyCars.dto.CarTextSearchResult;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+
+@SpringBootTest
+class CarTextSearchServiceTest {
+
+    @Autowired
+    private CarTextSearchService carTextSearchService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Palabra que solo aparece en los vehículos de la prueba
+    private String word;
+    private BrandModel brand;
+    private ModelModel model;
+    private ModelModel otherModel;
+    private final List<CarModel> cars = new ArrayList<>();
+
+    @BeforeEach
+    void createCatalog() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        word = "w" + suffix;
+        brand = new BrandModel();
+        brand.setName("Marca " + word);
+        brand = brandService.saveBrand(brand);
+        model = saveModel("Modelo " + suffix, brand);
+
+        BrandModel plain = new BrandModel();
+        plain.setName("Marca sin palabra " + suffix);
+        otherModel = saveModel("Otro " + suffix, brandService.saveBrand(plain));
+    }
+
+    @AfterEach
+    void deleteCatalog() {
+        cars.forEach(car -> carService.deleteCar(car.getId()));
+        modelService.deleteModel(model.getId());
+        modelService.deleteModel(otherModel.getId());
+        brandService.deleteBrand(brand.getId());
+        brandService.deleteBrand(otherModel.getBrand().getId());
+    }
+
+    // BM25F: la marca pesa más que la descripción y, en la descripción, un texto corto más que uno largo
+    @Test
+    void brandMatchRanksAboveShortAndLongDescriptions() {
+        CarModel longDescription = createCar(otherModel, "Vehículo revisado con " + word
+                + " y muchas otras cosas: climatizador, navegador, sensores de aparcamiento, cámara trasera,"
+                + " llantas de aleación, asientos calefactados y techo solar");
+        CarModel shortDescription = createCar(otherModel, "Con " + word);
+        CarModel brandOnly = createCar(model, "Sin nada especial");
+
+        CarTextSearchResult result = carTextSearchService.search(word, 0, 10);
+
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(result.hits()).extracting(hit -> hit.car().id())
+                .containsExactly(brandOnly.getId(), shortDescription.getId(), longDescription.getId());
+        assertThat(result.hits().get(0).matchedFields()).containsExactly("brand");
+        assertThat(result.hits().get(1).matchedFields()).containsExactly("description");
+        assertThat(result.hits().get(1).highlight()).isEqualTo("Con <em>" + word + "</em>");
+    }
+
+    // Los cambios hechos después de guardar el índice (otro nodo, SQL, nodo parado) se recogen al cargarlo
+    @Test
+    void indexLoadedFromDiskCatchesUpWithChangedRows() {
+        CarModel changed = createCar(otherModel, "Primera descripción");
+        CarModel kept = createCar(otherModel, "Descripción con " + word);
+        carTextSearchService.checkpoint();
+
+        updateDescriptionBehindIndex(changed, "Segunda descripción con " + word);
+        updateDescriptionBehindIndex(kept, "Ya no la tiene");
+        carTextSearchService.onApplicationReady();
+
+        assertThat(hitIds(word)).containsExactly(changed.getId());
+    }
+
+    @Test
+    void periodicCheckCatchesUpWithChangedRows() {
+        CarModel car = createCar(otherModel, "Descripción inicial");
+
+        updateDescriptionBehindIndex(car, "Descripción nueva con " + word);
+        carTextSearchService.verify();
+
+        assertThat(hitIds(word)).containsExactly(car.getId());
+    }
+
+    private List<Long> hitIds(String query) {
+        return carTextSearchService.search(query, 0, 10).hits().stream().map(hit -> hit.car().id()).toList();
+    }
+
+    // Sin pasar por el servicio, así que sin evento: como lo haría otro nodo
+    private void updateDescriptionBehindIndex(CarModel car, String description) {
+        jdbcTemplate.update("UPDATE cars SET description = ?, version = version + 1 WHERE id = ?", description, car.getId());
+    }
+
+    private ModelModel saveModel(String name, BrandModel owner) {
+        ModelModel saved = new ModelModel();
+        saved.setName(name);
+        saved.setBrand(owner);
+        return modelService.saveModel(saved);
+    }
+
+    private CarModel createCar(ModelModel carModel, String description) {
+        CarModel car = new CarModel();
+        car.setLicensePlate("X-" + UUID.randomUUID().toString().substring(0, 8));
+        car.setModel(carModel);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setColor("blanco");
+        car.setExpeditionYear(2019);
+        car.setMileage(40000);
+        car.setSellingPrice(BigDecimal.valueOf(12000));
+        car.setDescription(description);
+        CarModel saved = carService.createCar(car);
+        cars.add(saved);
+        return saved;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MyCars.dto.InventoryStats;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.CarRepository;
+
+@SpringBootTest
+class InventoryStatsServiceTest {
+
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private CarRepository carRepository;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private final List<CarModel> cars = new ArrayList<>();
+
+    @BeforeEach
+    void createModel() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandService.saveBrand(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelService.saveModel(model);
+    }
+
+    @AfterEach
+    void deleteCars() {
+        cars.forEach(car -> carService.deleteCar(car.getId()));
+        modelService.deleteModel(model.getId());
+        brandService.deleteBrand(brand.getId());
+    }
+
+    // Los cambios confirmados durante la reconstrucción cuentan una vez: ni se pierden los posteriores
+    // al GROUP BY ni se duplican los que ya leyó
+    @Test
+    void changesDuringRebuildAreCountedOnce() throws Exception {
+        CarModel existing = createCar(CarStatus.AVAILABLE);
+        // El repositorio es un proxy JDK: el espía delega en él con su respuesta por defecto
+        Answer<?> realRead = mockingDetails(carRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            // Antes de la lectura: la instantánea ya lo incluye aunque el evento llegue durante la reconstrucción
+            inOtherThread(() -> carService.patchCar(existing.getId(), Map.of("status", "SOLD")));
+            Object groups = realRead.answer(invocation);
+            // Después de la lectura: solo lo aportan los eventos
+            inOtherThread(() -> {
+                createCar(CarStatus.AVAILABLE);
+                carService.patchCar(existing.getId(), Map.of("status", "RESERVED"));
+            });
+            return groups;
+        }).when(carRepository).findStatsGroups();
+
+        inventoryStatsService.rebuild();
+
+        InventoryStats stats = inventoryStatsService.getStats();
+        assertThat(stats.total()).isEqualTo(jdbcTemplate.queryForObject("SELECT count(*) FROM cars", Long.class));
+        assertThat(stats.byStatus()).isEqualTo(statusCounts());
+        assertThat(stats.byBrand()).filteredOn(count -> count.id().equals(brand.getId()))
+                .singleElement()
+                .satisfies(count -> assertThat(count.count()).isEqualTo(2));
+    }
+
+    private Map<CarStatus, Long> statusCounts() {
+        Map<CarStatus, Long> counts = new EnumMap<>(CarStatus.class);
+        jdbcTemplate.query("SELECT status, count(*) FROM cars GROUP BY status", row -> {
+            counts.put(CarStatus.values()[row.getInt(1)], row.getLong(2));
+        });
+        return counts;
+    }
+
+    // En otro hilo para no entrar en la transacción de la reconstrucción
+    private static void inOtherThread(Runnable work) throws Exception {
+        CompletableFuture.runAsync(work).get(30, TimeUnit.SECONDS);
+    }
+
+    private CarModel createCar(CarStatus status) {
+        CarModel car = new CarModel();
+        car.setLicensePlate("S-" + UUID.randomUUID().toString().substring(0, 8));
+        car.setModel(model);
+        car.setStatus(status);
+        car.setColor("azul");
+        car.setExpeditionYear(2019);
+        car.setMileage(40000);
+        car.setSellingPrice(BigDecimal.valueOf(12000));
+        CarModel saved = carService.createCar(car);
+        cars.add(saved);
+        return saved;
+    }
+}
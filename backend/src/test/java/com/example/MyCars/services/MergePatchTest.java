@@ -0,0 +1,63 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class MergePatchTest {
+
+    private static final Map<String, MergePatch.Field> FIELDS = Map.of(
+            "name", new MergePatch.Field(String.class, false),
+            "description", new MergePatch.Field(String.class, true),
+            "price", new MergePatch.Field(BigDecimal.class, true));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // null vacía el campo; un campo ausente no aparece y por tanto no se escribe
+    @Test
+    void nullClearsAndAbsentKeeps() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("description", null);
+
+        MergePatch patch = MergePatch.parse(body, FIELDS, objectMapper);
+
+        assertThat(patch.values()).containsOnlyKeys("description").containsEntry("description", null);
+        assertThat(patch.expectedVersion()).isNull();
+    }
+
+    @Test
+    void valuesAreConvertedToTheFieldType() {
+        MergePatch patch = MergePatch.parse(Map.of("price", "12500.50", "name", "Golf"), FIELDS, objectMapper);
+
+        assertThat(patch.values()).containsEntry("price", new BigDecimal("12500.50")).containsEntry("name", "Golf");
+    }
+
+    // La versión es la condición del UPDATE, no un campo que se escriba
+    @Test
+    void versionIsTheExpectedVersion() {
+        MergePatch patch = MergePatch.parse(Map.of("version", 3, "name", "Golf"), FIELDS, objectMapper);
+
+        assertThat(patch.expectedVersion()).isEqualTo(3L);
+        assertThat(patch.values()).containsOnlyKeys("name");
+    }
+
+    @Test
+    void invalidBodiesAreRejected() {
+        Map<String, Object> nullRequired = new HashMap<>();
+        nullRequired.put("name", null);
+
+        assertThatThrownBy(() -> MergePatch.parse(nullRequired, FIELDS, objectMapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MergePatch.parse(Map.of("id", 5), FIELDS, objectMapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MergePatch.parse(Map.of("price", "barato"), FIELDS, objectMapper))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
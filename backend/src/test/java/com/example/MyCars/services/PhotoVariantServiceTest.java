@@ -0,0 +1,126 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.models.PhotoVariant;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+
+@SpringBootTest
+class PhotoVariantServiceTest {
+
+    @Autowired
+    private PhotoVariantService photoVariantService;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private CarModel car;
+    private CarPhotoModel photo;
+    private String fileName;
+
+    // Foto anterior a las variantes: fila con variants_ready = false y ninguna tarea encolada
+    @BeforeEach
+    void createUnprocessedPhoto() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+
+        car = new CarModel();
+        car.setLicensePlate("V-" + suffix);
+        car.setModel(model);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setColor("blanco");
+        car.setExpeditionYear(2016);
+        car.setMileage(80000);
+        car.setSellingPrice(BigDecimal.valueOf(7000));
+        car.setCreatedOn(LocalDate.now());
+        car = carRepository.save(car);
+
+        fileName = "legacy-" + suffix + ".jpg";
+        Path source = Files.createTempFile(photoStorage.stagingDirectory(), "legacy", ".tmp");
+        ImageIO.write(new BufferedImage(2000, 1500, BufferedImage.TYPE_INT_RGB), "jpeg", source.toFile());
+        photoStorage.store(fileName, source);
+
+        photo = new CarPhotoModel();
+        photo.setCar(car);
+        photo.setUrl(PhotoFileNames.urlOf(fileName));
+        photo.setIsMain(true);
+        photo.setPosition(0);
+        photo.setVariantsReady(false);
+        photo.setFileMissing(false);
+        photo = carPhotoRepository.save(photo);
+    }
+
+    @AfterEach
+    void deletePhoto() throws Exception {
+        carPhotoRepository.deleteById(photo.getId());
+        carRepository.deleteById(car.getId());
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+        photoStorage.delete(fileName);
+        photoVariantService.deleteVariants(photo.getUrl());
+    }
+
+    @Test
+    void backfillGeneratesVariantsOfUnprocessedPhotos() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!variantsReady() && System.nanoTime() < deadline) {
+            // Cada pasada avanza un tramo; otras filas pendientes de la base de datos pueden ir delante
+            photoVariantService.backfill();
+            Thread.sleep(100);
+        }
+
+        assertThat(variantsReady()).isTrue();
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            assertThat(photoStorage.exists(variant.fileNameFor(fileName))).as(variant.name()).isTrue();
+        }
+    }
+
+    private boolean variantsReady() {
+        return carPhotoRepository.findById(photo.getId()).orElseThrow().getVariantsReady();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TextAnalyzerTest {
+
+    // Consultas y documentos comparten raíz en plural, femenino y con tildes
+    @Test
+    void inflectedFormsShareStem() {
+        assertThat(TextAnalyzer.terms("rojas")).isEqualTo(TextAnalyzer.terms("Rojo"));
+        assertThat(TextAnalyzer.terms("luces")).isEqualTo(TextAnalyzer.terms("luz"));
+        assertThat(TextAnalyzer.terms("motores")).isEqualTo(TextAnalyzer.terms("motor"));
+        assertThat(TextAnalyzer.terms("baterías")).isEqualTo(TextAnalyzer.terms("bateria"));
+        assertThat(TextAnalyzer.terms("brakes")).isEqualTo(TextAnalyzer.terms("brake"));
+        assertThat(TextAnalyzer.terms("wheels")).isEqualTo(TextAnalyzer.terms("wheel"));
+        assertThat(TextAnalyzer.terms("rápidamente")).isEqualTo(TextAnalyzer.terms("rapida"));
+    }
+
+    @Test
+    void stopwordsAndShortOrNumericWordsAreKeptOrDropped() {
+        assertThat(TextAnalyzer.terms("el coche de la casa")).containsExactly("coch", "cas");
+        assertThat(TextAnalyzer.terms("the car with ABS")).containsExactly("car", "abs");
+        assertThat(TextAnalyzer.terms("Golf GTI 2019 a4")).containsExactly("golf", "gti", "2019", "a4");
+    }
+
+    // Las posiciones son las del texto original, para resaltar la palabra tal como se escribió
+    @Test
+    void tokensKeepOriginalOffsets() {
+        String text = "Faros de LED y llantas";
+
+        assertThat(TextAnalyzer.tokenize(text))
+                .extracting(token -> text.substring(token.start(), token.end()))
+                .containsExactly("Faros", "LED", "llantas");
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.MyCars.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.MyCars.dto.VersionStamp;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+
+@SpringBootTest
+class UploadReconciliationServiceTest {
+
+    @Autowired
+    private UploadReconciliationService uploadReconciliationService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+
+    @SpyBean
+    private PhotoStorage photoStorage;
+
+    private BrandModel brand;
+    private ModelModel model;
+    private CarModel car;
+    private CarPhotoModel photo;
+
+    // Foto cuya fila existe pero cuyo fichero no está en el almacén
+    @BeforeEach
+    void createPhotoWithoutFile() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        brand = new BrandModel();
+        brand.setName("Marca " + suffix);
+        brand = brandRepository.save(brand);
+
+        model = new ModelModel();
+        model.setName("Modelo " + suffix);
+        model.setBrand(brand);
+        model = modelRepository.save(model);
+
+        car = new CarModel();
+        car.setLicensePlate("R-" + suffix);
+        car.setModel(model);
+        car.setStatus(CarStatus.AVAILABLE);
+        car.setColor("gris");
+        car.setExpeditionYear(2015);
+        car.setMileage(120000);
+        car.setSellingPrice(BigDecimal.valueOf(5000));
+        car.setCreatedOn(LocalDate.now());
+        car = carRepository.save(car);
+
+        photo = new CarPhotoModel();
+        photo.setCar(car);
+        photo.setUrl(PhotoFileNames.urlOf("missing-" + suffix + ".jpg"));
+        photo.setIsMain(true);
+        photo.setPosition(0);
+        photo.setVariantsReady(true);
+        photo.setFileMissing(false);
+        photo = carPhotoRepository.save(photo);
+    }
+
+    @AfterEach
+    void deletePhoto() {
+        carPhotoRepository.deleteById(photo.getId());
+        carRepository.deleteById(car.getId());
+        modelRepository.deleteById(model.getId());
+        brandRepository.deleteById(brand.getId());
+    }
+
+    // fileMissing se ve en GET /cars/{id}: marcarlo cambia el ETag del vehículo
+    @Test
+    void missingFileIsMarkedAndChangesTheCarVersion() {
+        VersionStamp before = resourceVersionService.car(car.getId());
+
+        assertThat(uploadReconciliationService.reconcile()).isNotNull();
+
+        assertThat(carPhotoRepository.findById(photo.getId()).orElseThrow().getFileMissing()).isTrue();
+        assertThat(resourceVersionService.car(car.getId()).etag()).isNotEqualTo(before.etag());
+    }
+
+    // Las comprobaciones en el almacén (HEAD en S3) no retienen una transacción ni su conexión
+    @Test
+    void storageChecksRunOutsideTransactions() throws Exception {
+        List<Boolean> inTransaction = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(photoStorage).exists(anyString());
+
+        assertThat(uploadReconciliationService.reconcile()).isNotNull();
+
+        assertThat(inTransaction).isNotEmpty().containsOnly(false);
+    }
+}
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Prueba de carga de extremo a extremo contra los controladores reales.
+#
+#   ./load.sh                             100.000 vehículos, 32 clientes, mezcla "mixed", 60 s
+#   ./load.sh --mix=read --concurrency=64
+#   ./load.sh --url=http://localhost:8080 ataca un backend ya arrancado (no siembra)
+#
+# La primera ejecución siembra la base de datos y las fotos; las siguientes las reutilizan
+# mientras no cambien --cars ni --photo-files. Resultado en target/load-result.json.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MVN=${MVN:-mvn}
+
+# El módulo usa el jar sin reempaquetar del backend (clasificador "plain")
+"$MVN" -B -q -f ../backend/pom.xml install -DskipTests
+"$MVN" -B -q package
+
+java ${JAVA_OPTS:-} -cp "target/classes:$(cat target/classpath.txt)" com.example.MyCars.benchmarks.LoadTest "$@"
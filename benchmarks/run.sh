@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Ejecuta los benchmarks JMH del backend.
+#
+#   ./run.sh                      todos; resultado en target/jmh-result.json
+#   ./run.sh Catalog -f 2         argumentos de JMH (expresión de benchmarks, forks, iteraciones...)
+#   ./run.sh --compare [args]     ejecuta y compara con baseline/jmh-result.json (sale con 1 si hay regresiones)
+#   ./run.sh --update-baseline    ejecuta y guarda el resultado como nueva línea base
+#
+# Umbral de regresión para --compare: variable THRESHOLD (por defecto 10, en %).
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MVN=${MVN:-mvn}
+mode=run
+case "${1:-}" in
+    --compare) mode=compare; shift ;;
+    --update-baseline) mode=baseline; shift ;;
+esac
+
+# El módulo usa el jar sin reempaquetar del backend (clasificador "plain")
+"$MVN" -B -q -f ../backend/pom.xml install -DskipTests
+"$MVN" -B -q package
+
+classpath="target/classes:$(cat target/classpath.txt)"
+java -cp "$classpath" org.openjdk.jmh.Main -rf json -rff target/jmh-result.json "$@"
+
+case "$mode" in
+    compare)
+        java -cp "$classpath" com.example.MyCars.benchmarks.BaselineComparison \
+            baseline/jmh-result.json target/jmh-result.json "${THRESHOLD:-10}"
+        ;;
+    baseline)
+        cp target/jmh-result.json baseline/jmh-result.json
+        ;;
+esac
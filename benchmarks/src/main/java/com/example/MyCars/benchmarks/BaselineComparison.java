@@ -0,0 +1,81 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compara dos resultados JSON de JMH (línea base y ejecución actual) y marca como regresión
+ * todo benchmark que empeora más del umbral y en más que el error combinado de ambas medidas
+ * (raíz de la suma de los cuadrados de sus márgenes), no solo cuando los intervalos no se tocan.
+ * Sale con código 1 si hay alguna regresión.
+ *
+ * <pre>BaselineComparison baseline/jmh-result.json target/jmh-result.json [umbral%]</pre>
+ */
+public final class BaselineComparison {
+
+    private record Score(String mode, String unit, double value, double error) {
+    }
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BaselineComparison <línea base.json> <actual.json> [umbral%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Línea base", "Actual", "Cambio");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null || !before.unit().equals(now.unit())) {
+                System.out.printf("%-70s %14s %14.3f %9s  (nuevo)%n", entry.getKey(), "-", now.value(), "-");
+                continue;
+            }
+            // En avgt/sample/ss menos es mejor; en thrpt, más
+            boolean lowerIsBetter = !"thrpt".equals(now.mode());
+            double change = (now.value() - before.value()) / before.value() * 100;
+            double worse = lowerIsBetter ? change : -change;
+            // Diferencia mayor que el error combinado de ambas medidas (sus intervalos pueden solaparse en parte)
+            boolean significant = Math.abs(now.value() - before.value()) > Math.hypot(now.error(), before.error());
+            boolean regression = worse > threshold && significant;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), now.value(), change,
+                    regression ? "  REGRESIÓN" : "");
+        }
+        System.out.printf("%nUnidades: las de cada benchmark (%s). Umbral: %.1f%%. Regresiones: %d%n",
+                current.values().stream().map(Score::unit).distinct().reduce((a, b) -> a + ", " + b).orElse("-"),
+                threshold, regressions);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String name = run.path("benchmark").asText().replace("com.example.MyCars.benchmarks.", "");
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String key = params.isEmpty() ? name : name + " " + params;
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").isNumber() ? metric.path("scoreError").asDouble() : 0;
+            scores.put(key, new Score(run.path("mode").asText(), metric.path("scoreUnit").asText(),
+                    metric.path("score").asDouble(), error));
+        }
+        return scores;
+    }
+}
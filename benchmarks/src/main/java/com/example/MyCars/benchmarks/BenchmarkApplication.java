@@ -0,0 +1,38 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.MyCars.MyCarsApplication;
+import com.example.MyCars.services.CatalogService;
+
+/**
+ * Arranca el backend sin servidor web sobre H2 en memoria (perfil "bench") y lo siembra con
+ * {@link SyntheticDataGenerator}. Se arranca una vez por fork de JMH.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(int cars) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MyCarsApplication.class)
+                .profiles("bench")
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run();
+        try {
+            SyntheticDataGenerator.seed(context, cars, 0);
+        } catch (IOException e) {
+            context.close();
+            throw new UncheckedIOException(e);
+        }
+        // Los índices en memoria se construyeron al arrancar, con la base de datos vacía
+        context.getBean(CatalogService.class).rebuild();
+        return context;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.MyCars.benchmarks;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.services.PhotoFileNames;
+
+/**
+ * Datos sintéticos deterministas (misma semilla, mismos datos) con proporciones parecidas a
+ * las de un concesionario real: unas decenas de marcas, varios modelos por marca y dos o tres
+ * fotos por vehículo.
+ */
+final class BenchmarkData {
+
+    private static final String[] BRANDS = {
+        "Seat", "Renault", "Peugeot", "Citroën", "Volkswagen", "Toyota", "Ford", "Opel", "Kia", "Hyundai",
+        "BMW", "Audi", "Mercedes-Benz", "Nissan", "Mazda", "Skoda", "Fiat", "Dacia", "Volvo", "Honda",
+        "Mini", "Jeep", "Suzuki", "Lexus", "Tesla", "Cupra", "MG", "Mitsubishi", "Alfa Romeo", "Porsche"
+    };
+
+    private static final String[] COLORS = {"blanco", "negro", "gris", "plata", "azul", "rojo", "verde", "beige"};
+
+    private static final String[] WORDS = {
+        "único", "propietario", "libro", "revisiones", "garantía", "navegador", "climatizador", "cámara",
+        "trasera", "sensores", "aparcamiento", "llantas", "aleación", "faros", "led", "techo", "panorámico",
+        "tapicería", "cuero", "asientos", "calefactables", "itv", "pasada", "neumáticos", "nuevos", "automático"
+    };
+
+    static final int MODELS_PER_BRAND = 8;
+
+    private BenchmarkData() {
+    }
+
+    static List<BrandModel> brands() {
+        List<BrandModel> brands = new ArrayList<>(BRANDS.length);
+        for (String name : BRANDS) {
+            BrandModel brand = new BrandModel();
+            brand.setName(name);
+            List<ModelModel> models = new ArrayList<>(MODELS_PER_BRAND);
+            for (int i = 1; i <= MODELS_PER_BRAND; i++) {
+                ModelModel model = new ModelModel();
+                model.setName(name + " M" + i);
+                model.setBrand(brand);
+                models.add(model);
+            }
+            brand.setModels(models);
+            brands.add(brand);
+        }
+        return brands;
+    }
+
+    // Vehículos repartidos entre los modelos indicados; sin ids si aún no se han guardado
+    static List<CarModel> cars(List<ModelModel> models, int count, long seed) {
+        Random random = new Random(seed);
+        List<CarModel> cars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CarModel car = new CarModel();
+            car.setLicensePlate(String.format("%04d%s", i % 10000, plateLetters(i)));
+            car.setModel(models.get(random.nextInt(models.size())));
+            car.setStatus(CarStatus.values()[random.nextInt(CarStatus.values().length)]);
+            car.setColor(COLORS[random.nextInt(COLORS.length)]);
+            car.setExpeditionYear(2005 + random.nextInt(20));
+            car.setMileage(random.nextInt(250_000));
+            car.setSellingPrice(BigDecimal.valueOf(3_000 + random.nextInt(60_000)).setScale(2));
+            car.setCreatedOn(LocalDate.of(2023, 1, 1).plusDays(random.nextInt(600)));
+            car.setDescription(description(random));
+            cars.add(car);
+        }
+        return cars;
+    }
+
+    // Fotos con hashes aleatorios, sin fichero detrás
+    static List<CarPhotoModel> photos(CarModel car, Random random) {
+        return photos(car, random, List.of());
+    }
+
+    // Fotos que apuntan a ficheros ya guardados (repartidos al azar entre los vehículos)
+    static List<CarPhotoModel> photos(CarModel car, Random random, List<String> files) {
+        int count = 2 + random.nextInt(2);
+        List<CarPhotoModel> photos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String fileName;
+            if (files.isEmpty()) {
+                byte[] hash = new byte[32];
+                random.nextBytes(hash);
+                fileName = HexFormat.of().formatHex(hash) + ".jpg";
+            } else {
+                fileName = files.get(random.nextInt(files.size()));
+            }
+            CarPhotoModel photo = new CarPhotoModel();
+            photo.setCar(car);
+            photo.setUrl(PhotoFileNames.urlOf(fileName));
+            photo.setContentHash(PhotoFileNames.stemOf(fileName));
+            photo.setCaption("Foto " + (i + 1));
+            photo.setIsMain(i == 0);
+            photo.setPosition(i);
+            // Sin miniaturas: las URLs por ancho caen en el original
+            photo.setVariantsReady(files.isEmpty());
+            photo.setFileMissing(false);
+            photos.add(photo);
+        }
+        return photos;
+    }
+
+    // Degradado con ruido para que el JPEG tenga un tamaño parecido al de una foto real
+    static byte[] jpeg(int width, int height, long seed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(40, 90, 160), width, height, new Color(220, 200, 170)));
+            g.fillRect(0, 0, width, height);
+        } finally {
+            g.dispose();
+        }
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(24) - 12;
+                int rgb = image.getRGB(x, y);
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int gr = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private static String description(Random random) {
+        StringBuilder description = new StringBuilder();
+        int words = 20 + random.nextInt(40);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+
+    private static String plateLetters(int index) {
+        String letters = "BCDFGHJKLMNPRSTVWXYZ";
+        int n = index / 10000;
+        char[] plate = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            plate[i] = letters.charAt(n % letters.length());
+            n /= letters.length();
+        }
+        return new String(plate);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
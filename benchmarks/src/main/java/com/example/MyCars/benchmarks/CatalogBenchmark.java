@@ -0,0 +1,80 @@
+package com.example.MyCars.benchmarks;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.MyCars.dto.CatalogSnapshot;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.services.BrandService;
+import com.example.MyCars.services.CatalogService;
+import com.example.MyCars.services.ModelService;
+
+/**
+ * Catálogo marca → modelos: las búsquedas de modelos que van a la base de datos y el coste de
+ * reconstruir la foto en memoria que sirve /catalog tras un cambio. Leer la foto ya construida
+ * es leer un campo y no se mide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class CatalogBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private CatalogService catalogService;
+
+    private ModelService modelService;
+
+    private List<Long> modelIds;
+
+    private List<BrandModel> brands;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(1000);
+        catalogService = context.getBean(CatalogService.class);
+        modelService = context.getBean(ModelService.class);
+        brands = context.getBean(BrandService.class).getAllBrands();
+        modelIds = modelService.getAllModels().stream().map(ModelModel::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<ModelModel> modelById() {
+        return modelService.getModelById(modelIds.get(next++ % modelIds.size()));
+    }
+
+    @Benchmark
+    public List<ModelModel> modelsByBrand() {
+        return modelService.getModelsByBrand(brands.get(next++ % brands.size()));
+    }
+
+    @Benchmark
+    public CatalogSnapshot rebuild() {
+        return catalogService.rebuild();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.MyCars.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.ModelModel;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialización Jackson de los grafos que devuelve la API: vehículo → modelo → marca con sus
+ * fotos, y marcas con sus modelos. El ObjectMapper se configura como el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private List<BrandModel> brands;
+
+    private List<ModelModel> models;
+
+    @State(Scope.Benchmark)
+    public static class Inventory {
+
+        // Una página, un listado mediano y el inventario completo de un concesionario grande
+        @Param({"20", "200", "2000"})
+        private int cars;
+
+        private List<CarModel> carList;
+
+        @Setup
+        public void setUp(JsonSerializationBenchmark benchmark) {
+            carList = BenchmarkData.cars(benchmark.models, cars, 42);
+            Random random = new Random(7);
+            long id = 1_000;
+            for (CarModel car : carList) {
+                car.setId(id++);
+                car.setVersion(0L);
+                car.setPhotos(BenchmarkData.photos(car, random));
+                for (CarPhotoModel photo : car.getPhotos()) {
+                    photo.setId(id++);
+                }
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        brands = BenchmarkData.brands();
+        models = new ArrayList<>();
+        long id = 1;
+        for (BrandModel brand : brands) {
+            brand.setId(id++);
+            brand.setVersion(0L);
+            for (ModelModel model : brand.getModels()) {
+                model.setId(id++);
+                model.setVersion(0L);
+                models.add(model);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] cars(Inventory inventory) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(inventory.carList);
+    }
+
+    @Benchmark
+    public byte[] singleCar(Inventory inventory) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(inventory.carList.get(0));
+    }
+
+    @Benchmark
+    public byte[] brandsWithModels() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(brands);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.MyCars.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencias de la prueba de carga por endpoint. Se guardan todas las muestras (unos cientos de
+ * miles por ejecución) para dar percentiles exactos en lugar de aproximados.
+ */
+final class LatencyRecorder {
+
+    /** Resultado de un endpoint; latencias en milisegundos. */
+    record EndpointStats(String endpoint, long requests, long errors, double throughput,
+            double p50, double p95, double p99, double max) {
+    }
+
+    private static final class Samples {
+
+        private long[] nanos = new long[1024];
+
+        private int count;
+
+        private long errors;
+
+        synchronized void add(long latencyNanos, boolean error) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latencyNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean error) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(latencyNanos, error);
+    }
+
+    List<EndpointStats> stats(double seconds) {
+        List<EndpointStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Samples> entry : new TreeMap<>(samples).entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            if (sorted.length == 0) {
+                continue;
+            }
+            stats.add(new EndpointStats(entry.getKey(), sorted.length, entry.getValue().errors(),
+                    sorted.length / seconds, millis(percentile(sorted, 50)), millis(percentile(sorted, 95)),
+                    millis(percentile(sorted, 99)), millis(sorted[sorted.length - 1])));
+        }
+        return stats;
+    }
+
+    // Rango más cercano: el menor valor que deja por debajo al menos el p% de las muestras
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.MyCars.MyCarsApplication;
+import com.example.MyCars.benchmarks.LatencyRecorder.EndpointStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Prueba de carga de extremo a extremo. Siembra una base de datos H2 en fichero y un directorio
+ * de fotos con {@link SyntheticDataGenerator} (una vez; las ejecuciones siguientes los
+ * reutilizan), arranca el backend con servidor web y lo somete a una mezcla de peticiones
+ * desde tantos clientes concurrentes como se pida. Cada cliente espera su respuesta antes de
+ * enviar la siguiente (bucle cerrado). Informa de peticiones por segundo y p50/p95/p99 por
+ * endpoint, y guarda el resultado en JSON.
+ *
+ * <pre>
+ * --cars=100000        vehículos sembrados
+ * --photo-files=200    ficheros de foto distintos repartidos entre los vehículos
+ * --concurrency=32     clientes concurrentes
+ * --warmup=30          segundos de calentamiento (no se miden)
+ * --duration=60        segundos medidos
+ * --mix=mixed          read, mixed, write, upload o list
+ * --data-dir=DIR       datos sembrados (por defecto ${java.io.tmpdir}/mycars-load)
+ * --reseed             vuelve a sembrar aunque ya haya datos
+ * --url=URL            ataca un backend ya arrancado en lugar de arrancar uno
+ * --output=FILE        resultado JSON (por defecto target/load-result.json)
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final String SEED_MARKER = "seed.properties";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int cars = Integer.parseInt(options.getOrDefault("cars", "100000"));
+        int photoFiles = Integer.parseInt(options.getOrDefault("photo-files", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "30"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+        String mix = options.getOrDefault("mix", "mixed");
+        Path dataDir = Path.of(options.getOrDefault("data-dir",
+                Path.of(System.getProperty("java.io.tmpdir"), "mycars-load").toString()));
+        File output = new File(options.getOrDefault("output", "target/load-result.json"));
+
+        ConfigurableApplicationContext context = null;
+        URI base;
+        if (options.containsKey("url")) {
+            base = URI.create(options.get("url"));
+        } else {
+            seedIfNeeded(dataDir, cars, photoFiles, options.containsKey("reseed"));
+            context = start(dataDir, WebApplicationType.SERVLET);
+            base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        }
+
+        try {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            LoadWorkload workload = new LoadWorkload(base, mix);
+            workload.discover(request -> send(http, request));
+            System.out.printf("Backend %s: %d vehículos, %d fotos principales. Mezcla %s, %d clientes%n",
+                    base, workload.cars(), workload.photoFiles(), mix, concurrency);
+
+            System.out.printf("Calentamiento: %d s%n", warmup);
+            run(http, workload, concurrency, warmup, new LatencyRecorder());
+            System.out.printf("Medición: %d s%n", duration);
+            LatencyRecorder recorder = new LatencyRecorder();
+            Instant started = Instant.now();
+            double seconds = run(http, workload, concurrency, duration, recorder);
+
+            List<EndpointStats> stats = recorder.stats(seconds);
+            print(stats, seconds);
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("target", base.toString());
+            settings.put("cars", workload.cars());
+            settings.put("mix", mix);
+            settings.put("concurrency", concurrency);
+            settings.put("warmupSeconds", warmup);
+            write(output, settings, started, seconds, stats);
+        } finally {
+            if (context != null) {
+                awaitPhotoVariants(context);
+                context.close();
+            }
+        }
+    }
+
+    // Las miniaturas de las fotos subidas se generan en segundo plano; se esperan antes de cerrar
+    private static void awaitPhotoVariants(ConfigurableApplicationContext context) throws InterruptedException {
+        ThreadPoolExecutor variants = context.getBean("photoVariantExecutor", ThreadPoolExecutor.class);
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while ((variants.getActiveCount() > 0 || !variants.getQueue().isEmpty()) && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+        }
+    }
+
+    /** Lanza los clientes durante los segundos indicados y devuelve el tiempo real transcurrido. */
+    private static double run(HttpClient http, LoadWorkload workload, int concurrency, int seconds,
+            LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        // Al cerrarse, el executor espera a que todos los clientes terminen su última petición
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                long seed = i;
+                workers.submit(() -> {
+                    Random random = new Random(seed);
+                    while (System.nanoTime() < deadline) {
+                        LoadWorkload.Call call = workload.next(random);
+                        long sent = System.nanoTime();
+                        boolean error;
+                        try {
+                            HttpResponse<byte[]> response = http.send(call.request(), BodyHandlers.ofByteArray());
+                            error = response.statusCode() >= 400;
+                            if (call.onResponse() != null) {
+                                call.onResponse().accept(response);
+                            }
+                        } catch (IOException e) {
+                            error = true;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        recorder.record(call.endpoint(), System.nanoTime() - sent, error);
+                    }
+                });
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static void seedIfNeeded(Path dataDir, int cars, int photoFiles, boolean reseed) throws IOException {
+        Path marker = dataDir.resolve(SEED_MARKER);
+        Properties expected = new Properties();
+        expected.setProperty("cars", Integer.toString(cars));
+        expected.setProperty("photo-files", Integer.toString(photoFiles));
+        if (!reseed && Files.isRegularFile(marker)) {
+            Properties seeded = new Properties();
+            try (InputStream in = Files.newInputStream(marker)) {
+                seeded.load(in);
+            }
+            if (seeded.equals(expected)) {
+                System.out.printf("Reutilizando los datos sembrados en %s%n", dataDir);
+                return;
+            }
+        }
+
+        clear(dataDir);
+        System.out.printf("Sembrando %d vehículos y %d ficheros de foto en %s%n", cars, photoFiles, dataDir);
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(dataDir, WebApplicationType.NONE)) {
+            SyntheticDataGenerator.seed(context, cars, photoFiles);
+            SyntheticDataGenerator.createSearchIndexes(context);
+        }
+        // El marcador se escribe al final: una siembra interrumpida se repite entera
+        try (OutputStream out = Files.newOutputStream(marker)) {
+            expected.store(out, null);
+        }
+        System.out.printf("Siembra terminada en %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    // Los índices en memoria se construyen al arrancar, así que se arranca después de sembrar
+    private static ConfigurableApplicationContext start(Path dataDir, WebApplicationType web) {
+        return new SpringApplicationBuilder(MyCarsApplication.class)
+                .profiles("bench", "load")
+                .properties("app.load.dir=" + dataDir.toAbsolutePath())
+                .web(web)
+                .logStartupInfo(false)
+                .run();
+    }
+
+    private static HttpResponse<byte[]> send(HttpClient http, HttpRequest request) {
+        try {
+            return http.send(request, BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void print(List<EndpointStats> stats, double seconds) {
+        System.out.printf("%n%-36s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Peticiones", "Errores", "Pet/s", "p50 ms", "p95 ms", "p99 ms", "máx ms");
+        long requests = 0;
+        long errors = 0;
+        for (EndpointStats endpoint : stats) {
+            requests += endpoint.requests();
+            errors += endpoint.errors();
+            System.out.printf("%-36s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint.endpoint(), endpoint.requests(),
+                    endpoint.errors(), endpoint.throughput(), endpoint.p50(), endpoint.p95(), endpoint.p99(), endpoint.max());
+        }
+        System.out.printf("%-36s %9d %7d %9.1f%n", "Total", requests, errors, requests / seconds);
+    }
+
+    private static void write(File output, Map<String, Object> settings, Instant started, double seconds,
+            List<EndpointStats> stats) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", started.toString());
+        result.put("seconds", seconds);
+        result.put("settings", settings);
+        result.put("endpoints", stats);
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, result);
+        System.out.printf("%nResultado guardado en %s%n", output);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    // Vacía el directorio de datos (o lo crea)
+    private static void clear(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(dir)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
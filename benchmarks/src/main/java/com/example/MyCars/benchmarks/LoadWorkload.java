@@ -0,0 +1,312 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Peticiones de la prueba de carga contra los controladores reales, con pesos según la mezcla
+ * elegida. Los ids salen del propio API ({@link #discover}), así que sirve igual para el
+ * backend arrancado por la prueba que para uno externo.
+ */
+final class LoadWorkload {
+
+    /** Petición lista para enviar y lo que se hace con su respuesta. */
+    record Call(String endpoint, HttpRequest request, Consumer<HttpResponse<byte[]>> onResponse) {
+    }
+
+    private record Operation(String endpoint, Function<Random, Call> call) {
+    }
+
+    /**
+     * Mezclas disponibles: peso de cada endpoint. El listado completo de /cars (todos los
+     * resúmenes, decenas de MB con 100.000 vehículos) solo está en "list": en las demás taparía
+     * al resto de endpoints.
+     */
+    static final Map<String, Map<String, Integer>> MIXES = Map.of(
+            "read", weights(
+                    "GET /cars/{id}", 25, "GET /cars/search", 10, "GET /cars/search?brandId", 8,
+                    "GET /cars/batch", 4, "GET /brands (If-None-Match)", 5, "GET /brands", 2, "GET /models/{id}", 3,
+                    "GET /models/brand/{brandId}", 6, "GET /api/cars/{carId}/photos", 10,
+                    "GET /api/cars/photos/main", 7, "GET /uploads/cars/{file}", 15),
+            "mixed", weights(
+                    "GET /cars/{id}", 22, "GET /cars/search", 9, "GET /cars/search?brandId", 7,
+                    "GET /cars/batch", 4, "GET /brands (If-None-Match)", 4, "GET /brands", 2, "GET /models/{id}", 3,
+                    "GET /models/brand/{brandId}", 5, "GET /api/cars/{carId}/photos", 9,
+                    "GET /api/cars/photos/main", 6, "GET /uploads/cars/{file}", 13,
+                    "POST /cars", 3, "PATCH /cars/{id}", 5, "DELETE /cars/{id}", 1,
+                    "POST /api/cars/{carId}/photos", 2),
+            "write", weights(
+                    "GET /cars/{id}", 20, "GET /cars/search", 10, "POST /cars", 20, "PATCH /cars/{id}", 30,
+                    "DELETE /cars/{id}", 5, "POST /api/cars/{carId}/photos", 15),
+            "list", weights(
+                    "GET /cars (If-None-Match)", 8, "GET /cars", 2, "GET /cars/{id}", 10),
+            "upload", weights(
+                    "POST /api/cars/{carId}/photos", 50, "GET /api/cars/{carId}/photos", 20,
+                    "GET /uploads/cars/{file}", 30));
+
+    private static final String[] STATUSES = {"AVAILABLE", "RESERVED", "SOLD", "MAINTENANCE"};
+
+    private static final String[] SORTS = {"ID", "PRICE", "YEAR", "MILEAGE", "CREATED"};
+
+    private static final int UPLOAD_IMAGES = 4;
+
+    private final URI base;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private final int[] cumulativeWeights;
+
+    private long[] carIds;
+
+    private long[] brandIds;
+
+    private long[] modelIds;
+
+    private String[] photoUrls;
+
+    private final List<byte[]> uploadImages = new ArrayList<>();
+
+    // Vehículos creados durante la prueba: son los únicos que se borran
+    private final Queue<Long> createdCars = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final String runId = Long.toString(System.currentTimeMillis() % 1_000_000, 36).toUpperCase();
+
+    LoadWorkload(URI base, String mix) {
+        this.base = base;
+        Map<String, Integer> weights = MIXES.get(mix);
+        if (weights == null) {
+            throw new IllegalArgumentException("Mezcla desconocida: " + mix + " (disponibles: " + MIXES.keySet() + ")");
+        }
+        Map<String, Function<Random, Call>> all = operations();
+        cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            total += entry.getValue();
+            cumulativeWeights[operations.size()] = total;
+            operations.add(new Operation(entry.getKey(), all.get(entry.getKey())));
+        }
+    }
+
+    /**
+     * Lee del API los ids de marcas, modelos y vehículos y las URLs de las fotos principales,
+     * y prepara las imágenes que se suben.
+     */
+    void discover(Function<HttpRequest, HttpResponse<byte[]>> client) throws IOException {
+        brandIds = ids(json(client, "/brands"), "id");
+        modelIds = ids(json(client, "/models"), "id");
+        JsonNode cars = json(client, "/cars");
+        carIds = ids(cars, "id");
+        List<String> urls = new ArrayList<>();
+        for (JsonNode car : cars) {
+            if (car.hasNonNull("mainPhotoUrl")) {
+                urls.add(car.get("mainPhotoUrl").asText());
+            }
+        }
+        photoUrls = urls.toArray(String[]::new);
+        if (carIds.length == 0 || modelIds.length == 0) {
+            throw new IllegalStateException("El backend no tiene vehículos o modelos");
+        }
+        for (int i = 0; i < UPLOAD_IMAGES; i++) {
+            uploadImages.add(BenchmarkData.jpeg(1024, 768, 1_000 + i));
+        }
+    }
+
+    int cars() {
+        return carIds.length;
+    }
+
+    int photoFiles() {
+        return photoUrls.length;
+    }
+
+    Call next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations.get(i).call().apply(random);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private Map<String, Function<Random, Call>> operations() {
+        Map<String, Function<Random, Call>> all = new LinkedHashMap<>();
+        all.put("GET /cars/{id}", r -> get("GET /cars/{id}", "/cars/" + pick(r, carIds)));
+        all.put("GET /cars/search", r -> get("GET /cars/search", "/cars/search?status=" + pick(r, STATUSES)
+                + "&sort=" + pick(r, SORTS) + "&direction=" + (r.nextBoolean() ? "asc" : "desc")));
+        all.put("GET /cars/search?brandId", r -> get("GET /cars/search?brandId",
+                "/cars/search?brandId=" + pick(r, brandIds) + "&sort=PRICE"));
+        all.put("GET /cars/batch", r -> get("GET /cars/batch", "/cars/batch?ids=" + sample(r, carIds, 20)));
+        all.put("GET /cars (If-None-Match)", r -> conditional("GET /cars (If-None-Match)", "/cars"));
+        all.put("GET /cars", r -> get("GET /cars", "/cars"));
+        all.put("GET /brands (If-None-Match)", r -> conditional("GET /brands (If-None-Match)", "/brands"));
+        all.put("GET /brands", r -> get("GET /brands", "/brands"));
+        all.put("GET /models/{id}", r -> get("GET /models/{id}", "/models/" + pick(r, modelIds)));
+        all.put("GET /models/brand/{brandId}", r -> get("GET /models/brand/{brandId}", "/models/brand/" + pick(r, brandIds)));
+        all.put("GET /api/cars/{carId}/photos", r -> get("GET /api/cars/{carId}/photos", "/api/cars/" + pick(r, carIds) + "/photos"));
+        all.put("GET /api/cars/photos/main", r -> get("GET /api/cars/photos/main", "/api/cars/photos/main?carIds=" + sample(r, carIds, 24)));
+        all.put("GET /uploads/cars/{file}", r -> photoUrls.length > 0
+                ? get("GET /uploads/cars/{file}", pick(r, photoUrls))
+                : get("GET /cars/{id}", "/cars/" + pick(r, carIds)));
+        all.put("POST /cars", this::createCar);
+        all.put("PATCH /cars/{id}", r -> new Call("PATCH /cars/{id}",
+                request("/cars/" + pick(r, carIds))
+                        .header("Content-Type", "application/merge-patch+json")
+                        .method("PATCH", BodyPublishers.ofString("{\"sellingPrice\":" + (3_000 + r.nextInt(60_000))
+                                + ",\"mileage\":" + r.nextInt(250_000) + "}"))
+                        .build(), null));
+        all.put("DELETE /cars/{id}", r -> {
+            Long id = createdCars.poll();
+            // Sin vehículos propios que borrar todavía se crea uno
+            return id != null
+                    ? new Call("DELETE /cars/{id}", request("/cars/" + id).DELETE().build(), null)
+                    : createCar(r);
+        });
+        all.put("POST /api/cars/{carId}/photos", this::uploadPhoto);
+        return all;
+    }
+
+    private Call createCar(Random random) {
+        ObjectNode car = objectMapper.createObjectNode();
+        car.put("licensePlate", "LT" + runId + sequence.incrementAndGet());
+        car.putObject("model").put("id", pick(random, modelIds));
+        car.put("status", pick(random, STATUSES));
+        car.put("color", "gris");
+        car.put("expeditionYear", 2005 + random.nextInt(20));
+        car.put("mileage", random.nextInt(250_000));
+        car.put("sellingPrice", 3_000 + random.nextInt(60_000));
+        car.put("description", "Vehículo creado por la prueba de carga");
+        HttpRequest request = request("/cars")
+                .header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString(car.toString()))
+                .build();
+        return new Call("POST /cars", request, response -> {
+            if (response.statusCode() == 201) {
+                try {
+                    createdCars.add(objectMapper.readTree(response.body()).get("id").asLong());
+                } catch (IOException e) {
+                    // Sin id no se podrá borrar; no afecta a la medida
+                }
+            }
+        });
+    }
+
+    // Multipart como el del frontend; cada subida es un fichero distinto para no medir solo la deduplicación
+    private Call uploadPhoto(Random random) {
+        String boundary = "----mycars-load-" + random.nextLong();
+        byte[] image = unique(uploadImages.get(random.nextInt(uploadImages.size())), sequence.incrementAndGet());
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 512);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"foto.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"caption\"\r\n\r\n"
+                + "Prueba de carga\r\n"
+                + "--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = request("/api/cars/" + pick(random, carIds) + "/photos")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return new Call("POST /api/cars/{carId}/photos", request, null);
+    }
+
+    // Como un navegador que ya tiene la respuesta en caché: revalida con la última ETag vista
+    private Call conditional(String endpoint, String path) {
+        HttpRequest.Builder builder = request(path);
+        String etag = etags.get(path);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return new Call(endpoint, builder.GET().build(),
+                response -> response.headers().firstValue("ETag").ifPresent(value -> etags.put(path, value)));
+    }
+
+    private Call get(String endpoint, String path) {
+        return new Call(endpoint, request(path).GET().build(), null);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path));
+    }
+
+    private JsonNode json(Function<HttpRequest, HttpResponse<byte[]>> client, String path) throws IOException {
+        HttpResponse<byte[]> response = client.apply(request(path).GET().build());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + path + " devolvió " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    // Segmento de comentario JPEG tras el SOI: la imagen sigue siendo válida pero su hash cambia
+    private static byte[] unique(byte[] jpeg, long counter) {
+        byte[] comment = ("mycars-load " + counter).getBytes(StandardCharsets.US_ASCII);
+        int length = comment.length + 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(jpeg.length + length + 2);
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xFE);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(comment);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static long[] ids(JsonNode array, String field) {
+        long[] ids = new long[array.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = array.get(i).get(field).asLong();
+        }
+        return ids;
+    }
+
+    private static long pick(Random random, long[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String sample(Random random, long[] values, int count) {
+        return random.longs(count, 0, values.length)
+                .mapToObj(i -> Long.toString(values[(int) i]))
+                .collect(Collectors.joining(","));
+    }
+
+    private static Map<String, Integer> weights(Object... pairs) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            weights.put((String) pairs[i], (Integer) pairs[i + 1]);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.MyCars.controllers.PhotoFileController;
+import com.example.MyCars.services.FilePhotoStorage;
+import com.example.MyCars.services.PhotoStreamWriter;
+import com.example.MyCars.services.PhotoStreamWriter.StagedPhoto;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Escritura de una subida (una pasada con SHA-256 y detección de tipo) y servicio de la foto
+ * por {@link PhotoFileController}: respuesta completa, 304 y rango. También la búsqueda de un
+ * fichero en el almacén repartido frente al directorio plano anterior.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class PhotoFileBenchmark {
+
+    private static final long MAX_UPLOAD_BYTES = 10 * 1024 * 1024;
+
+    private Path root;
+
+    private FilePhotoStorage storage;
+
+    private PhotoFileController controller;
+
+    private byte[] jpeg;
+
+    private String shardedName;
+
+    private String legacyName;
+
+    private String etag;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("mycars-photo-bench");
+        storage = new FilePhotoStorage(root);
+        controller = new PhotoFileController();
+        ReflectionTestUtils.setField(controller, "photoStorage", storage);
+
+        jpeg = BenchmarkData.jpeg(1600, 1200, 1);
+        StagedPhoto staged = PhotoStreamWriter.write(Channels.newChannel(new ByteArrayInputStream(jpeg)),
+                storage.stagingDirectory(), MAX_UPLOAD_BYTES);
+        shardedName = staged.fileName();
+        storage.store(shardedName, staged.tempFile());
+        etag = "\"" + staged.contentHash() + "\"";
+
+        // Un fichero que sigue en la organización plana anterior
+        StagedPhoto legacy = PhotoStreamWriter.write(Channels.newChannel(new ByteArrayInputStream(BenchmarkData.jpeg(320, 240, 2))),
+                storage.stagingDirectory(), MAX_UPLOAD_BYTES);
+        legacyName = legacy.fileName();
+        Files.move(legacy.tempFile(), root.resolve(legacyName));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String stageUpload() throws IOException {
+        StagedPhoto staged = PhotoStreamWriter.write(Channels.newChannel(new ByteArrayInputStream(jpeg)),
+                storage.stagingDirectory(), MAX_UPLOAD_BYTES);
+        Files.delete(staged.tempFile());
+        return staged.contentHash();
+    }
+
+    @Benchmark
+    public long serveFull() throws IOException {
+        CountingResponse response = new CountingResponse();
+        controller.servePhoto(shardedName, get(), response);
+        return response.written;
+    }
+
+    @Benchmark
+    public int serveNotModified() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.servePhoto(shardedName, request, response);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public long serveRange() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-65535");
+        CountingResponse response = new CountingResponse();
+        controller.servePhoto(shardedName, request, response);
+        return response.written;
+    }
+
+    @Benchmark
+    public Path lookupSharded() {
+        return storage.localPath(shardedName);
+    }
+
+    @Benchmark
+    public Path lookupLegacy() {
+        return storage.localPath(legacyName);
+    }
+
+    /**
+     * Respuesta que solo cuenta los bytes del cuerpo. MockHttpServletResponse los copia de uno
+     * en uno y su coste taparía el del controlador.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        long written;
+
+        private final ServletOutputStream body = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        CountingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return body;
+        }
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/uploads/cars/" + shardedName);
+    }
+}
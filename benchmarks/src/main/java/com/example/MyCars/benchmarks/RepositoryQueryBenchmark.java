@@ -0,0 +1,114 @@
+package com.example.MyCars.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.MyCars.dto.CarPage;
+import com.example.MyCars.dto.CarSearchCriteria;
+import com.example.MyCars.dto.CarSortField;
+import com.example.MyCars.dto.CarStatsGroup;
+import com.example.MyCars.dto.CarSummary;
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarStatus;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.services.CarService;
+
+/**
+ * Consultas de vehículos contra H2 en memoria sembrada con datos generados. Mide el camino
+ * completo servicio → repositorio → Hibernate → JDBC; las cifras absolutas no son las de
+ * PostgreSQL, pero sí sirven para comparar versiones entre sí.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class RepositoryQueryBenchmark {
+
+    @Param({"5000"})
+    private int cars;
+
+    private ConfigurableApplicationContext context;
+
+    private CarService carService;
+
+    private CarRepository carRepository;
+
+    private List<Long> carIds;
+
+    private List<Long> brandIds;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(cars);
+        carService = context.getBean(CarService.class);
+        carRepository = context.getBean(CarRepository.class);
+        carIds = carService.getCarSummaries().stream().map(CarSummary::id).toList();
+        brandIds = context.getBean(BrandRepository.class).findAll().stream().map(BrandModel::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<CarModel> findById() {
+        return carRepository.findById(carIds.get(next++ % carIds.size()));
+    }
+
+    @Benchmark
+    public Map<Long, CarModel> carsByIds() {
+        List<Long> ids = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            ids.add(carIds.get(next++ % carIds.size()));
+        }
+        return carService.getCarsByIds(ids);
+    }
+
+    @Benchmark
+    public List<CarSummary> allSummaries() {
+        return carService.getCarSummaries();
+    }
+
+    @Benchmark
+    public CarPage<CarSummary> searchFirstPage() {
+        CarSearchCriteria criteria = new CarSearchCriteria(CarStatus.AVAILABLE, null, null, null, null, null, null,
+                null, null, CarSortField.PRICE, false);
+        return carService.searchCars(criteria, null, 20);
+    }
+
+    @Benchmark
+    public CarPage<CarSummary> searchByBrand() {
+        CarSearchCriteria criteria = new CarSearchCriteria(null, brandIds.get(next++ % brandIds.size()), null, null,
+                null, 2010, null, null, 150_000, CarSortField.YEAR, true);
+        return carService.searchCars(criteria, null, 20);
+    }
+
+    @Benchmark
+    public List<CarStatsGroup> statsGroups() {
+        return carRepository.findStatsGroups();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.MyCars.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MyCars.models.BrandModel;
+import com.example.MyCars.models.CarModel;
+import com.example.MyCars.models.CarPhotoModel;
+import com.example.MyCars.models.ModelModel;
+import com.example.MyCars.repositories.BrandRepository;
+import com.example.MyCars.repositories.CarPhotoRepository;
+import com.example.MyCars.repositories.CarRepository;
+import com.example.MyCars.repositories.ModelRepository;
+import com.example.MyCars.services.PhotoStorage;
+import com.example.MyCars.services.PhotoStreamWriter;
+import com.example.MyCars.services.PhotoStreamWriter.StagedPhoto;
+
+/**
+ * Siembra una instancia arrancada del backend con {@link BenchmarkData}: marcas, modelos,
+ * vehículos en lotes de una transacción y, si se pide, un conjunto de fotos JPEG reales
+ * guardadas en el almacén de fotos y repartidas entre los vehículos.
+ */
+final class SyntheticDataGenerator {
+
+    private static final int INSERT_CHUNK = 1000;
+
+    // Tamaños habituales de las fotos que suben los concesionarios
+    private static final int[][] PHOTO_SIZES = {{800, 600}, {1024, 768}, {1280, 960}, {1600, 1200}};
+
+    // Índices de las migraciones V3 y V8; Flyway no corre en el perfil bench y sin ellos H2 recorre la tabla entera
+    private static final String[] SEARCH_INDEXES = {
+        "CREATE INDEX IF NOT EXISTS idx_cars_selling_price_id ON cars (selling_price, id)",
+        "CREATE INDEX IF NOT EXISTS idx_cars_expedition_year_id ON cars (expedition_year, id)",
+        "CREATE INDEX IF NOT EXISTS idx_cars_mileage_id ON cars (mileage, id)",
+        "CREATE INDEX IF NOT EXISTS idx_cars_created_on_id ON cars (created_on, id)",
+        "CREATE INDEX IF NOT EXISTS idx_cars_status_id ON cars (status, id)",
+        "CREATE INDEX IF NOT EXISTS idx_cars_model_id ON cars (model_id, id)",
+        "CREATE INDEX IF NOT EXISTS idx_models_brand_id ON models (brand_id)",
+        "CREATE INDEX IF NOT EXISTS idx_car_photos_car_position ON car_photos (car_id, position, id)"
+    };
+
+    private SyntheticDataGenerator() {
+    }
+
+    /**
+     * @param photoFiles número de ficheros distintos; con 0 las fotos tienen hashes aleatorios
+     *                   sin fichero detrás
+     */
+    static void seed(ConfigurableApplicationContext context, int cars, int photoFiles) throws IOException {
+        List<String> files = photoFiles > 0 ? writePhotoFiles(context.getBean(PhotoStorage.class), photoFiles) : List.of();
+
+        BrandRepository brandRepository = context.getBean(BrandRepository.class);
+        ModelRepository modelRepository = context.getBean(ModelRepository.class);
+        CarRepository carRepository = context.getBean(CarRepository.class);
+        CarPhotoRepository carPhotoRepository = context.getBean(CarPhotoRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<ModelModel> models = transaction.execute(status -> {
+            List<ModelModel> saved = new ArrayList<>();
+            for (BrandModel brand : BenchmarkData.brands()) {
+                List<ModelModel> brandModels = brand.getModels();
+                brand.setModels(null);
+                BrandModel savedBrand = brandRepository.save(brand);
+                brandModels.forEach(model -> model.setBrand(savedBrand));
+                saved.addAll(modelRepository.saveAll(brandModels));
+            }
+            return saved;
+        });
+
+        List<CarModel> generated = BenchmarkData.cars(models, cars, 42);
+        Random random = new Random(7);
+        for (int from = 0; from < generated.size(); from += INSERT_CHUNK) {
+            List<CarModel> chunk = generated.subList(from, Math.min(generated.size(), from + INSERT_CHUNK));
+            transaction.executeWithoutResult(status -> {
+                List<CarPhotoModel> photos = new ArrayList<>();
+                for (CarModel car : carRepository.saveAll(chunk)) {
+                    photos.addAll(BenchmarkData.photos(car, random, files));
+                }
+                carPhotoRepository.saveAll(photos);
+            });
+        }
+    }
+
+    static void createSearchIndexes(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        for (String index : SEARCH_INDEXES) {
+            jdbc.execute(index);
+        }
+    }
+
+    // Se guardan como una subida normal: nombre por contenido y organización del almacén
+    private static List<String> writePhotoFiles(PhotoStorage storage, int count) throws IOException {
+        List<String> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int[] size = PHOTO_SIZES[i % PHOTO_SIZES.length];
+            byte[] jpeg = BenchmarkData.jpeg(size[0], size[1], i);
+            StagedPhoto staged = PhotoStreamWriter.write(Channels.newChannel(new ByteArrayInputStream(jpeg)),
+                    storage.stagingDirectory(), Long.MAX_VALUE);
+            try {
+                if (!storage.exists(staged.fileName())) {
+                    storage.store(staged.fileName(), staged.tempFile());
+                }
+                files.add(staged.fileName());
+            } finally {
+                Files.deleteIfExists(staged.tempFile());
+            }
+        }
+        return files;
+    }
+}
@@ -7,12 +7,12 @@ import { CarCard } from '../../modules/cars/ui/CarCard';
 import { getAllCars } from '../../modules/cars/application/getAllCars';
 import { createCar } from '../../modules/cars/application/createCar';
 import { CarApiRepository } from '../../modules/cars/infrastructure/CarApiRepository';
-import { Car } from '../../modules/cars/domain/Car';
+import { Car, CarSummary } from '../../modules/cars/domain/Car';
 import { useEffect, useCallback } from 'react';
 
 export default function CarsPage() {
   const [showForm, setShowForm] = useState(false);
-  const [cars, setCars] = useState<Car[]>([]);
+  const [cars, setCars] = useState<CarSummary[]>([]);
   const [error, setError] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
 
@@ -29,3 +29,20 @@ export interface Car {
   photos?: CarPhoto[];
 }
 
+// Resumen que sirve GET /cars: lo justo para pintar una tarjeta del listado
+export interface CarSummary {
+  id: number;
+  licensePlate: string;
+  brandId: number;
+  brandName: string;
+  modelId: number;
+  modelName: string;
+  sellingPrice: number;
+  status: Car['status'];
+  color: string;
+  expeditionYear: number;
+  mileage: number;
+  createdOn?: string;
+  mainPhotoId?: number | null;
+  mainPhotoUrl?: string | null;
+}
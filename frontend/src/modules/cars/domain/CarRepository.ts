@@ -1,7 +1,7 @@
-import { Car } from './Car';
+import { Car, CarSummary } from './Car';
 
 export interface CarRepository {
-  getAll(): Promise<Car[]>;
+  getAll(): Promise<CarSummary[]>;
   create(car: Car): Promise<Car>;
   // Puedes añadir otros métodos aquí como getById, update, delete
 } 
\ No newline at end of file
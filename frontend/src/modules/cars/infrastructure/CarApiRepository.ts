@@ -1,4 +1,4 @@
-import { Car } from "../domain/Car"; // Importa desde el dominio
+import { Car, CarSummary } from "../domain/Car"; // Importa desde el dominio
 import { CarRepository } from "../domain/CarRepository";
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || "http://localhost:8080";
@@ -6,7 +6,7 @@ const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || "http://localhost:8080";
 export class CarApiRepository implements CarRepository {
   private readonly API_URL = API_BASE_URL;
 
-  async getAll(): Promise<Car[]> {
+  async getAll(): Promise<CarSummary[]> {
     try {
       const response = await fetch(`${this.API_URL}/cars`, {
         headers: {
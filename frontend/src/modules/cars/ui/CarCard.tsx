@@ -2,19 +2,19 @@ import React from 'react';
 import Image from 'next/image';
 import { useRouter } from 'next/navigation';
 // Usar ruta relativa si el alias @/ no funciona consistentemente en tu entorno
-import { Car } from "../domain/Car"; // Importa la entidad Car
+import { CarSummary } from "../domain/Car"; // Resumen que devuelve el listado
 import { formatPrice, translateStatus, getStatusColor } from '../utils/carUtils';
 import { API_BASE_URL } from '@/config/api';
 
 type CarCardProps = {
-  car: Car;
+  car: CarSummary;
 };
 
 export function CarCard({ car }: CarCardProps) {
   const router = useRouter();
 
-  // Asegurarse de que 'car', 'car.model', y 'car.model.brand' existen antes de acceder a las propiedades
-  if (!car || !car.model || !car.model.brand) {
+  // Asegurarse de que 'car' trae marca y modelo antes de pintarlo
+  if (!car || !car.brandName || !car.modelName) {
     console.error("Invalid car data received by CarCard:", car);
     return (
       <div className="p-4 bg-primary-50 text-primary-800 rounded-lg border border-primary-200">
@@ -23,7 +23,7 @@ export function CarCard({ car }: CarCardProps) {
     );
   }
 
-  const mainPhoto = car.photos?.find(photo => photo.isMain);
+  const mainPhotoUrl = car.mainPhotoUrl;
 
   const handleViewDetails = () => {
     router.push(`/cars/${car.id}`);
@@ -33,11 +33,11 @@ export function CarCard({ car }: CarCardProps) {
     <div className="group relative bg-white rounded-xl overflow-hidden transition-all duration-300 hover:shadow-2xl border border-neutral-200/50 hover:border-primary-200">
       {/* Imagen y overlay con marca */}
       <div className="relative aspect-[16/9] overflow-hidden">
-        {mainPhoto ? (
+        {mainPhotoUrl ? (
           <>
             <Image
-              src={mainPhoto.url.startsWith('http') ? mainPhoto.url : `${API_BASE_URL}${mainPhoto.url}`}
-              alt={`${car.model.brand.name} ${car.model.name}`}
+              src={mainPhotoUrl.startsWith('http') ? mainPhotoUrl : `${API_BASE_URL}${mainPhotoUrl}`}
+              alt={`${car.brandName} ${car.modelName}`}
               fill
               className="object-cover transform group-hover:scale-110 transition-transform duration-700"
               sizes="(max-width: 768px) 100vw, (max-width: 1200px) 50vw, 33vw"
@@ -55,7 +55,7 @@ export function CarCard({ car }: CarCardProps) {
         {/* Badge de marca */}
         <div className="absolute top-4 left-4 px-3 py-1 bg-black/70 backdrop-blur-sm rounded-full">
           <p className="text-sm font-medium text-white">
-            {car.model.brand.name}
+            {car.brandName}
           </p>
         </div>
 
@@ -73,7 +73,7 @@ export function CarCard({ car }: CarCardProps) {
           {/* Modelo y año */}
           <div>
             <h3 className="text-2xl font-bold text-neutral-900 group-hover:text-primary-600 transition-colors">
-              {car.model.name}
+              {car.modelName}
             </h3>
             <p className="text-neutral-500 font-medium">{car.expeditionYear}</p>
           </div>